@@ -0,0 +1,128 @@
+package com.example.api_gateway.src;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.filter.RouteToRequestUrlFilter;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import javax.crypto.Mac;
+import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.util.Base64;
+
+/**
+ * Проверяет JWT один раз на входе и передаёт личность пользователя сервисам заголовками
+ * X-Auth-User, X-Auth-Role, X-Auth-User-Id.
+ * <p>
+ * Заголовки подписываются HMAC-SHA256 вместе с методом, путём и меткой времени
+ * (X-Auth-Timestamp, X-Auth-Signature) общим с сервисами ключом {@code gateway.identity.secret},
+ * поэтому сервисы принимают их без повторной проверки JWT, а перехваченный набор заголовков
+ * не подходит к другому запросу. Пришедшие снаружи X-Auth-* всегда удаляются.
+ * Невалидный токен не отклоняется здесь: запрос уходит без личности, решение остаётся за сервисом.
+ * <p>
+ * Оба ключа обязательны и задаются в base64, как {@code jwt.secret} в booking-service,
+ * выпускающем токены; без них шлюз не стартует.
+ */
+@Component
+public class JwtIdentityFilter implements GlobalFilter, Ordered {
+
+    static final String USER_HEADER = "X-Auth-User";
+    static final String ROLE_HEADER = "X-Auth-Role";
+    static final String USER_ID_HEADER = "X-Auth-User-Id";
+    static final String TIMESTAMP_HEADER = "X-Auth-Timestamp";
+    static final String SIGNATURE_HEADER = "X-Auth-Signature";
+
+    private final JwtParser parser;
+    private final SecretKey identityKey;
+
+    public JwtIdentityFilter(@Value("${jwt.secret}") String jwtSecret,
+                             @Value("${gateway.identity.secret}") String identitySecret) {
+        this.parser = Jwts.parserBuilder()
+                .setSigningKey(hmacKey("jwt.secret", jwtSecret))
+                .build();
+        this.identityKey = hmacKey("gateway.identity.secret", identitySecret);
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        ServerHttpRequest.Builder request = exchange.getRequest().mutate()
+                .headers(headers -> {
+                    headers.remove(USER_HEADER);
+                    headers.remove(ROLE_HEADER);
+                    headers.remove(USER_ID_HEADER);
+                    headers.remove(TIMESTAMP_HEADER);
+                    headers.remove(SIGNATURE_HEADER);
+                });
+
+        Claims claims = verify(exchange.getRequest().getHeaders().getFirst(HttpHeaders.AUTHORIZATION));
+        if (claims != null) {
+            String username = claims.getSubject();
+            String role = claims.get("role", String.class);
+            Object userId = claims.get("userId");
+            String userIdValue = userId == null ? "" : userId.toString();
+            String timestamp = Long.toString(System.currentTimeMillis());
+            // Метод и путь — те, что увидит сервис: StripPrefix к этому моменту уже применён
+            String method = exchange.getRequest().getMethod().name();
+            String path = exchange.getRequest().getURI().getRawPath();
+            request.headers(headers -> {
+                headers.set(USER_HEADER, username);
+                headers.set(ROLE_HEADER, role);
+                headers.set(USER_ID_HEADER, userIdValue);
+                headers.set(TIMESTAMP_HEADER, timestamp);
+                headers.set(SIGNATURE_HEADER, sign(method, path, username, role, userIdValue, timestamp));
+            });
+        }
+        return chain.filter(exchange.mutate().request(request.build()).build());
+    }
+
+    // После маршрутных фильтров (StripPrefix), но до отправки запроса в сервис
+    @Override
+    public int getOrder() {
+        return RouteToRequestUrlFilter.ROUTE_TO_URL_FILTER_ORDER + 1;
+    }
+
+    private Claims verify(String authHeader) {
+        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
+            return null;
+        }
+        try {
+            return parser.parseClaimsJws(authHeader.substring(7)).getBody();
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    // Формат подписи совпадает с GatewayIdentity в сервисах: method \n path \n user \n role \n userId \n timestamp
+    private String sign(String method, String path, String username, String role, String userId, String timestamp) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(identityKey);
+            byte[] payload = String.join("\n", method, path, username, role, userId, timestamp)
+                    .getBytes(StandardCharsets.UTF_8);
+            return Base64.getEncoder().encodeToString(mac.doFinal(payload));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // Ключ декодируется так же, как у выпускающего токены JwtService: base64, не короче 256 бит
+    private static SecretKey hmacKey(String property, String secret) {
+        try {
+            return Keys.hmacShaKeyFor(Decoders.BASE64.decode(secret));
+        } catch (RuntimeException e) {
+            throw new IllegalStateException(property + " must be a base64-encoded key of at least 256 bits", e);
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package com.example.benchmarks;
+
+import com.example.booking_service.service.BookingIntervalIndex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Проверка занятости комнаты при растущем числе бронирований: прежний путь
+ * (findBookedRoomIds за период + List.contains) против BookingIntervalIndex.isBooked.
+ * Время запроса к БД сюда не входит — сравнивается только проверка в памяти.
+ * <p>
+ * Две точки: самая загруженная комната на период из середины её броней (бинарный поиск
+ * останавливается в середине массива) и существующая комната на свободный период
+ * (contains просматривает весь список).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AvailabilityCheckBenchmark {
+
+    private static final int ROOMS = 1_000;
+    private static final int DAYS = 365;
+    private static final LocalDate ORIGIN = LocalDate.of(2025, 1, 1);
+
+    @Param({"1000", "10000", "100000"})
+    public int bookings;
+
+    private BookingIntervalIndex index;
+
+    private long busyRoomId;
+    private LocalDate busyStart;
+    private LocalDate busyEnd;
+    private List<Long> bookedForBusy;
+
+    private long freeRoomId;
+    private LocalDate freeStart;
+    private LocalDate freeEnd;
+    private List<Long> bookedForFree;
+
+    // Брони как строки журнала: room, start, end в днях от ORIGIN
+    private long[] rooms;
+    private int[] starts;
+    private int[] ends;
+    private int[] perRoom;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        // Индекс заполняется напрямую, репозиторий нужен только для load()
+        index = new BookingIntervalIndex(null);
+        rooms = new long[bookings];
+        starts = new int[bookings];
+        ends = new int[bookings];
+        perRoom = new int[ROOMS];
+        for (int i = 0; i < bookings; i++) {
+            rooms[i] = random.nextInt(ROOMS);
+            starts[i] = random.nextInt(DAYS);
+            ends[i] = starts[i] + 1 + random.nextInt(7);
+            index.add(i + 1L, rooms[i], day(starts[i]), day(ends[i]));
+            perRoom[(int) rooms[i]]++;
+        }
+
+        busyRoomId = 0;
+        for (int room = 1; room < ROOMS; room++) {
+            if (perRoom[room] > perRoom[(int) busyRoomId]) {
+                busyRoomId = room;
+            }
+        }
+        int middle = middleStart(busyRoomId);
+        busyStart = day(middle);
+        busyEnd = day(middle + 3);
+        bookedForBusy = findBookedRoomIds(middle, middle + 3);
+
+        int[] free = findFreeNight();
+        freeRoomId = free[0];
+        freeStart = day(free[1]);
+        freeEnd = day(free[1] + 1);
+        bookedForFree = findBookedRoomIds(free[1], free[1] + 1);
+
+        if (!index.isBooked(busyRoomId, busyStart, busyEnd) || !bookedForBusy.contains(busyRoomId)
+                || index.isBooked(freeRoomId, freeStart, freeEnd) || bookedForFree.contains(freeRoomId)) {
+            throw new IllegalStateException("Benchmark points do not match the generated bookings");
+        }
+    }
+
+    @Benchmark
+    public boolean listContainsBusy() {
+        return bookedForBusy.contains(busyRoomId);
+    }
+
+    @Benchmark
+    public boolean intervalIndexBusy() {
+        return index.isBooked(busyRoomId, busyStart, busyEnd);
+    }
+
+    @Benchmark
+    public boolean listContainsFree() {
+        return bookedForFree.contains(freeRoomId);
+    }
+
+    @Benchmark
+    public boolean intervalIndexFree() {
+        return index.isBooked(freeRoomId, freeStart, freeEnd);
+    }
+
+    // Медианная дата заезда комнаты — запрос с неё попадает в середину массива интервалов
+    private int middleStart(long room) {
+        List<Integer> roomStarts = new ArrayList<>();
+        for (int i = 0; i < bookings; i++) {
+            if (rooms[i] == room) {
+                roomStarts.add(starts[i]);
+            }
+        }
+        roomStarts.sort(null);
+        return roomStarts.get(roomStarts.size() / 2);
+    }
+
+    // Первая от середины года свободная ночь среди забронированных комнат, начиная с самой загруженной
+    private int[] findFreeNight() {
+        for (int r = 0; r < ROOMS; r++) {
+            long room = (busyRoomId + r) % ROOMS;
+            if (perRoom[(int) room] == 0) {
+                continue;
+            }
+            for (int offset = 0; offset < DAYS / 2; offset++) {
+                for (int d : new int[]{DAYS / 2 + offset, DAYS / 2 - offset}) {
+                    if (!index.isBooked(room, day(d), day(d + 1))) {
+                        return new int[]{(int) room, d};
+                    }
+                }
+            }
+        }
+        throw new IllegalStateException("No free night found");
+    }
+
+    // Что вернул бы прежний запрос: комнаты броней, пересекающих ночи [from, to)
+    private List<Long> findBookedRoomIds(int from, int to) {
+        List<Long> result = new ArrayList<>();
+        for (int i = 0; i < bookings; i++) {
+            if (starts[i] < to && ends[i] > from) {
+                result.add(rooms[i]);
+            }
+        }
+        return result;
+    }
+
+    private static LocalDate day(int offset) {
+        return ORIGIN.plusDays(offset);
+    }
+}
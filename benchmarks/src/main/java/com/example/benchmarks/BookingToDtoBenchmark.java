@@ -0,0 +1,71 @@
+package com.example.benchmarks;
+
+import com.example.booking_service.dto.BookingDTO;
+import com.example.booking_service.entity.Booking;
+import com.example.booking_service.entity.BookingStatus;
+import com.example.booking_service.entity.Role;
+import com.example.booking_service.entity.User;
+import com.example.booking_service.service.BookingService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * BookingService.toDTO. Метод приватный: вызывается через MethodHandle из static final поля,
+ * который JIT сворачивает в прямой вызов.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BookingToDtoBenchmark {
+
+    private static final MethodHandle TO_DTO = toDtoHandle();
+
+    private Booking booking;
+
+    @Setup
+    public void setUp() {
+        User user = User.builder().id(1L).username("bench").role(Role.USER).build();
+        booking = Booking.builder()
+                .id(100L)
+                .user(user)
+                .roomId(10L)
+                .startDate(LocalDate.of(2025, 6, 1))
+                .endDate(LocalDate.of(2025, 6, 4))
+                .status(BookingStatus.CONFIRMED)
+                .createdAt(LocalDateTime.of(2025, 5, 1, 12, 0))
+                .requestId("bench-request")
+                .build();
+    }
+
+    @Benchmark
+    public BookingDTO toDTO() throws Throwable {
+        return (BookingDTO) TO_DTO.invokeExact(booking);
+    }
+
+    private static MethodHandle toDtoHandle() {
+        try {
+            return MethodHandles.privateLookupIn(BookingService.class, MethodHandles.lookup())
+                    .findStatic(BookingService.class, "toDTO", MethodType.methodType(BookingDTO.class, Booking.class));
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
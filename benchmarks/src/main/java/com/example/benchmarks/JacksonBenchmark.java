@@ -0,0 +1,84 @@
+package com.example.benchmarks;
+
+import com.example.booking_service.dto.BookingDTO;
+import com.example.hotel_service.dto.RoomDTO;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Сериализация DTO, которые сервисы отдают и получают по HTTP.
+ * ObjectMapper настроен как в Spring Boot: JavaTimeModule, даты строками ISO.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JacksonBenchmark {
+
+    private ObjectWriter roomWriter;
+    private ObjectReader roomReader;
+    private ObjectWriter bookingWriter;
+    private ObjectReader bookingReader;
+
+    private RoomDTO room;
+    private BookingDTO booking;
+    private String roomJson;
+    private String bookingJson;
+
+    @Setup
+    public void setUp() throws JsonProcessingException {
+        ObjectMapper mapper = new ObjectMapper()
+                .registerModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        roomWriter = mapper.writerFor(RoomDTO.class);
+        roomReader = mapper.readerFor(RoomDTO.class);
+        bookingWriter = mapper.writerFor(BookingDTO.class);
+        bookingReader = mapper.readerFor(BookingDTO.class);
+
+        room = new RoomDTO(10L, 1L, "101", true, 3);
+        booking = new BookingDTO(100L, 1L, 10L, LocalDate.of(2025, 6, 1), LocalDate.of(2025, 6, 4),
+                "CONFIRMED", LocalDateTime.of(2025, 5, 1, 12, 0));
+        roomJson = roomWriter.writeValueAsString(room);
+        bookingJson = bookingWriter.writeValueAsString(booking);
+    }
+
+    @Benchmark
+    public String serializeRoom() throws JsonProcessingException {
+        return roomWriter.writeValueAsString(room);
+    }
+
+    @Benchmark
+    public RoomDTO deserializeRoom() throws JsonProcessingException {
+        return roomReader.readValue(roomJson);
+    }
+
+    @Benchmark
+    public String serializeBooking() throws JsonProcessingException {
+        return bookingWriter.writeValueAsString(booking);
+    }
+
+    @Benchmark
+    public BookingDTO deserializeBooking() throws JsonProcessingException {
+        return bookingReader.readValue(bookingJson);
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.benchmarks;
+
+import com.example.booking_service.JWT.JwtService;
+import com.example.hotel_service.JWT.JwtUtil;
+import io.jsonwebtoken.Claims;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Выпуск и проверка JWT: полная проверка подписи против попадания в кеш проверенных токенов.
+ * Промах кеша меряется на кеше из одной записи и пуле разных токенов, проходимом по кругу.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtBenchmark {
+
+    private static final int UNCACHED_TOKENS = 1024;
+
+    private JwtService jwtService;
+    private JwtUtil jwtUtil;
+    private JwtUtil uncachedJwtUtil;
+    private String token;
+    private String[] uncachedTokens;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        byte[] key = new byte[32];
+        new SecureRandom().nextBytes(key);
+        String secret = Base64.getEncoder().encodeToString(key);
+
+        jwtService = new JwtService(secret, 3_600_000L);
+        jwtUtil = new JwtUtil(secret, 10_000);
+        token = jwtService.generateToken(1L, "bench", "USER");
+        jwtUtil.validateToken(token);
+
+        uncachedJwtUtil = new JwtUtil(secret, 1);
+        uncachedTokens = new String[UNCACHED_TOKENS];
+        for (int i = 0; i < UNCACHED_TOKENS; i++) {
+            uncachedTokens[i] = jwtService.generateToken((long) i, "bench-" + i, "USER");
+        }
+    }
+
+    @Benchmark
+    public String generateToken() {
+        return jwtService.generateToken(1L, "bench", "USER");
+    }
+
+    // Разбор и проверка HMAC на каждый вызов
+    @Benchmark
+    public Claims extractAllClaims() {
+        return jwtUtil.extractAllClaims(token);
+    }
+
+    // Путь фильтра при первом запросе с токеном: хеш, промах кеша, разбор, проверка HMAC и запись в кеш
+    @Benchmark
+    public boolean validateTokenUncached() {
+        String candidate = uncachedTokens[next];
+        next = (next + 1) & (UNCACHED_TOKENS - 1);
+        return uncachedJwtUtil.validateToken(candidate);
+    }
+
+    // Токен уже проверен: хеш SHA-256 и поиск в кеше
+    @Benchmark
+    public boolean validateTokenCached() {
+        return jwtUtil.validateToken(token);
+    }
+}
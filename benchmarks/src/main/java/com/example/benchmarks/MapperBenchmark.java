@@ -0,0 +1,70 @@
+package com.example.benchmarks;
+
+import com.example.hotel_service.dto.HotelDTO;
+import com.example.hotel_service.dto.RoomDTO;
+import com.example.hotel_service.entity.Hotel;
+import com.example.hotel_service.entity.Room;
+import com.example.hotel_service.mapper.HotelMapper;
+import com.example.hotel_service.mapper.HotelMapperImpl;
+import com.example.hotel_service.mapper.RoomMapper;
+import com.example.hotel_service.mapper.RoomMapperImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Сгенерированные MapStruct-конвертеры hotel-service.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MapperBenchmark {
+
+    private final RoomMapper roomMapper = new RoomMapperImpl();
+    private final HotelMapper hotelMapper = new HotelMapperImpl();
+
+    private Room room;
+    private RoomDTO roomDTO;
+    private Hotel hotel;
+    private HotelDTO hotelDTO;
+
+    @Setup
+    public void setUp() {
+        hotel = Hotel.builder().id(1L).name("Grand").address("Main st. 1").build();
+        room = Room.builder().id(10L).hotel(hotel).number("101").available(true).timesBooked(3).build();
+        roomDTO = roomMapper.toDTO(room);
+        hotelDTO = hotelMapper.toDTO(hotel);
+    }
+
+    @Benchmark
+    public RoomDTO roomToDTO() {
+        return roomMapper.toDTO(room);
+    }
+
+    @Benchmark
+    public Room roomToEntity() {
+        return roomMapper.toEntity(roomDTO);
+    }
+
+    @Benchmark
+    public HotelDTO hotelToDTO() {
+        return hotelMapper.toDTO(hotel);
+    }
+
+    @Benchmark
+    public Hotel hotelToEntity() {
+        return hotelMapper.toEntity(hotelDTO);
+    }
+}
@@ -0,0 +1,98 @@
+package com.example.booking_service.client;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Адаптивный лимит одновременных вызовов в духе TCP Vegas.
+ * <p>
+ * Минимальное наблюдённое время ответа (rttNoLoad) считается временем без очереди.
+ * Оценка очереди у сервера: {@code limit * (1 - rttNoLoad / rtt)}. Пока очередь меньше
+ * alpha = 3·log10(limit), лимит растёт на log10(limit); когда больше beta = 6·log10(limit) —
+ * уменьшается на столько же. Таймаут или перегрузка сервера сразу срезают лимит на 10%.
+ * Раз в {@code probeInterval} замеров rttNoLoad сбрасывается, чтобы лимит следовал
+ * за изменением базовой задержки, а не застревал на старом минимуме.
+ */
+public class AdaptiveConcurrencyLimiter {
+
+    private static final double BACKOFF_RATIO = 0.9;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final int probeInterval;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private volatile int limit;
+
+    // Под монитором this
+    private double estimatedLimit;
+    private long rttNoLoadNanos;
+    private int samplesSinceProbe;
+
+    public AdaptiveConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit, int probeInterval) {
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.probeInterval = probeInterval;
+        this.estimatedLimit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+        this.limit = (int) estimatedLimit;
+    }
+
+    public boolean tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= limit) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    // Вызов завершён ответом: rttNanos — время ответа, dropped — таймаут или перегрузка сервера
+    public void release(long rttNanos, boolean dropped) {
+        int inFlightBefore = inFlight.getAndDecrement();
+        update(rttNanos, dropped, inFlightBefore);
+    }
+
+    // Вызов отменён или не состоялся — замера нет
+    public void releaseIgnored() {
+        inFlight.decrementAndGet();
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    private synchronized void update(long rttNanos, boolean dropped, int inFlightBefore) {
+        if (dropped) {
+            estimatedLimit = Math.max(minLimit, estimatedLimit * BACKOFF_RATIO);
+            limit = (int) estimatedLimit;
+            return;
+        }
+        if (rttNanos <= 0) {
+            return;
+        }
+        if (++samplesSinceProbe >= probeInterval) {
+            samplesSinceProbe = 0;
+            rttNoLoadNanos = 0;
+        }
+        if (rttNoLoadNanos == 0 || rttNanos < rttNoLoadNanos) {
+            rttNoLoadNanos = rttNanos;
+        }
+        // Лимит не выбран и наполовину — замер ничего не говорит о его достаточности
+        if (inFlightBefore * 2 < estimatedLimit) {
+            return;
+        }
+        double queue = estimatedLimit * (1 - (double) rttNoLoadNanos / rttNanos);
+        double step = Math.max(1, Math.log10(estimatedLimit));
+        if (queue < 3 * step) {
+            estimatedLimit = Math.min(maxLimit, estimatedLimit + step);
+        } else if (queue > 6 * step) {
+            estimatedLimit = Math.max(minLimit, estimatedLimit - step);
+        }
+        limit = (int) estimatedLimit;
+    }
+}
@@ -0,0 +1,136 @@
+package com.example.booking_service.client;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Автомат CLOSED → OPEN → HALF_OPEN по доле ошибок в скользящем окне последних вызовов.
+ * <p>
+ * В CLOSED считаются исходы последних {@code windowSize} вызовов; когда их не меньше
+ * {@code minCalls} и доля ошибок достигает порога — OPEN: вызовы отклоняются сразу
+ * в течение {@code openMillis}. Затем HALF_OPEN пропускает до {@code halfOpenProbes}
+ * пробных вызовов: все успешны — CLOSED с чистым окном, любая ошибка — снова OPEN.
+ */
+@Slf4j
+public class CircuitBreaker {
+
+    public enum State {
+        CLOSED, HALF_OPEN, OPEN
+    }
+
+    // PROBE — пробный вызов в HALF_OPEN; исходы обычных вызовов после смены состояния не учитываются
+    public enum Permission {
+        DENIED, CALL, PROBE
+    }
+
+    private final String name;
+    private final double failureRateThreshold;
+    private final int minCalls;
+    private final long openMillis;
+    private final int halfOpenProbes;
+
+    // Под монитором this
+    private final boolean[] window;
+    private int position;
+    private int calls;
+    private int failures;
+    private volatile State state = State.CLOSED;
+    private long openedAt;
+    private int probesInFlight;
+    private int probeSuccesses;
+
+    public CircuitBreaker(String name, int windowSize, int minCalls, double failureRateThreshold,
+                          long openMillis, int halfOpenProbes) {
+        this.name = name;
+        this.window = new boolean[windowSize];
+        this.minCalls = minCalls;
+        this.failureRateThreshold = failureRateThreshold;
+        this.openMillis = openMillis;
+        this.halfOpenProbes = halfOpenProbes;
+    }
+
+    public synchronized Permission tryAcquire() {
+        if (state == State.CLOSED) {
+            return Permission.CALL;
+        }
+        if (state == State.OPEN) {
+            if (System.currentTimeMillis() - openedAt < openMillis) {
+                return Permission.DENIED;
+            }
+            transition(State.HALF_OPEN);
+            probesInFlight = 0;
+            probeSuccesses = 0;
+        }
+        if (probesInFlight >= halfOpenProbes) {
+            return Permission.DENIED;
+        }
+        probesInFlight++;
+        return Permission.PROBE;
+    }
+
+    public synchronized void onSuccess(Permission permission) {
+        if (permission == Permission.PROBE && state == State.HALF_OPEN) {
+            probesInFlight--;
+            if (++probeSuccesses >= halfOpenProbes) {
+                resetWindow();
+                transition(State.CLOSED);
+            }
+        } else if (permission == Permission.CALL && state == State.CLOSED) {
+            record(false);
+        }
+    }
+
+    public synchronized void onFailure(Permission permission) {
+        if (permission == Permission.PROBE && state == State.HALF_OPEN) {
+            open();
+        } else if (permission == Permission.CALL && state == State.CLOSED) {
+            record(true);
+            if (calls >= minCalls && failures * 100.0 / calls >= failureRateThreshold) {
+                open();
+            }
+        }
+    }
+
+    // Вызов отменён — исход неизвестен, пробный слот возвращается
+    public synchronized void onIgnored(Permission permission) {
+        if (permission == Permission.PROBE && state == State.HALF_OPEN) {
+            probesInFlight--;
+        }
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    private void record(boolean failure) {
+        if (calls == window.length) {
+            if (window[position]) {
+                failures--;
+            }
+        } else {
+            calls++;
+        }
+        window[position] = failure;
+        if (failure) {
+            failures++;
+        }
+        position = (position + 1) % window.length;
+    }
+
+    private void open() {
+        openedAt = System.currentTimeMillis();
+        transition(State.OPEN);
+    }
+
+    private void resetWindow() {
+        position = 0;
+        calls = 0;
+        failures = 0;
+    }
+
+    private void transition(State next) {
+        if (state != next) {
+            log.warn("Circuit breaker {}: {} -> {}", name, state, next);
+            state = next;
+        }
+    }
+}
@@ -1,91 +1,230 @@
 package com.example.booking_service.client;
 
+import com.example.booking_service.dto.BatchConfirmAvailabilityRequest;
+import com.example.booking_service.dto.BatchConfirmAvailabilityResponse;
 import com.example.booking_service.dto.ConfirmAvailabilityRequest;
 import com.example.booking_service.dto.RoomDTO;
+import com.example.booking_service.dto.RoomHoldDTO;
+import com.example.booking_service.dto.RoomReservationDTO;
+import com.example.booking_service.client.HotelServiceGuard.Endpoint;
+import com.example.booking_service.exception.HotelServiceUnavailableException;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
 import reactor.util.retry.Retry;
 
 import java.time.Duration;
+import java.time.LocalDate;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Service
 @Slf4j
 public class HotelServiceClient {
 
+    // Различных (limit, даты) в полёте немного; сверх этого вызовы идут без склейки
+    private static final int MAX_RECOMMEND_FLIGHTS = 64;
+    private static final Duration CALL_TIMEOUT = Duration.ofSeconds(5);
+    private static final int MAX_RETRIES = 3;
+
     private final WebClient webClient;
+    private final HotelServiceGuard guard;
+
+    /**
+     * Near-cache метаданных комнат (номер, отель): они почти не меняются, а при бронировании
+     * конкретной комнаты нужен лишь факт её существования. Доступность по кешу не решается —
+     * её всегда подтверждает hotel-service в confirm-availability.
+     */
+    private final Cache<Long, RoomDTO> roomCache;
+
+    /**
+     * Склейка одновременных запросов рекомендаций (single-flight): на каждые limit и даты — один
+     * Mono, пока запрос к hotel-service в полёте. Подписчики, пришедшие за это время, получают
+     * тот же ответ; после ответа запись удаляется, и следующий подписчик запускает новый запрос —
+     * устаревший рейтинг не переиспользуется.
+     */
+    private final Map<RecommendKey, Mono<List<RoomDTO>>> recommendFlights = new ConcurrentHashMap<>();
+    private final Counter recommendUpstreamCounter;
 
     @Value("${hotel-service.url:https://hotel-service}")
     private String baseUrl;
 
-    public HotelServiceClient(WebClient.Builder webClientBuilder) {
+    public HotelServiceClient(WebClient.Builder webClientBuilder,
+                              @Value("${hotel-service.room-cache.ttl-ms:300000}") long roomCacheTtlMillis,
+                              @Value("${hotel-service.room-cache.max-size:10000}") long roomCacheMaxSize,
+                              HotelServiceGuard guard,
+                              MeterRegistry meterRegistry) {
         this.webClient = webClientBuilder.build();
+        this.guard = guard;
+        this.recommendUpstreamCounter = meterRegistry.counter("hotel.rooms.recommend.upstream");
+        this.roomCache = Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofMillis(roomCacheTtlMillis))
+                .maximumSize(roomCacheMaxSize)
+                .recordStats()
+                .build();
+        // cache.gets{result=hit|miss}, cache.evictions, cache.size с тегом cache=hotel.rooms
+        CaffeineCacheMetrics.monitor(meterRegistry, roomCache, "hotel.rooms");
     }
 
-    public RoomDTO getRoom(Long roomId) {
-        try {
-            return webClient.get()
-                    .uri(baseUrl + "/api/rooms/{id}", roomId)
-                    .retrieve()
-                    .bodyToMono(RoomDTO.class)
-                    .block();
-        } catch (Exception e) {
-            log.error("Error fetching room {}: {}", roomId, e.getMessage());
-            return null;
-        }
+    // Ошибки логируются и превращаются в «пустой» результат.
+    // Исключение — отказ HotelServiceGuard (HotelServiceUnavailableException): он доходит до клиента как 503
+
+    // Сначала near-cache; в кеш попадают только найденные комнаты, 404 и ошибки не кешируются
+    public Mono<RoomDTO> fetchRoom(Long roomId) {
+        return Mono.defer(() -> {
+            RoomDTO cached = roomCache.getIfPresent(roomId);
+            return cached != null ? Mono.just(cached) : loadRoom(roomId);
+        });
     }
 
-    public List<RoomDTO> getRecommendedRooms() {
-        try {
-            List<RoomDTO> list = webClient.get()
-                    .uri(baseUrl + "/api/rooms/recommend")
-                    .retrieve()
-                    .bodyToFlux(RoomDTO.class)
-                    .collectList()
-                    .timeout(Duration.ofSeconds(5))
-                    .retryWhen(Retry.backoff(3, Duration.ofSeconds(1)))
-                    .block();
-            return list != null ? list : Collections.emptyList();
-        } catch (Exception e) {
-            log.error("Error fetching recommended rooms: {}", e.getMessage());
-            return Collections.emptyList();
-        }
+    public void invalidateRoom(Long roomId) {
+        roomCache.invalidate(roomId);
+    }
+
+    public void invalidateRooms() {
+        roomCache.invalidateAll();
     }
 
-    public boolean confirmRoomAvailability(Long roomId, ConfirmAvailabilityRequest req) {
-        try {
-            Boolean result = webClient.post()
-                    .uri(baseUrl + "/api/rooms/{id}/confirm-availability", roomId)
-                    .bodyValue(req)
-                    .retrieve()
-                    .bodyToMono(Boolean.class)
-                    .timeout(Duration.ofSeconds(5))
-                    .retryWhen(Retry.backoff(3, Duration.ofSeconds(1)))
-                    .block();
-            return Boolean.TRUE.equals(result);
-        } catch (Exception e) {
-            log.error("Error confirming availability for room {}: {}", roomId, e.getMessage());
-            return false;
+    private Mono<RoomDTO> loadRoom(Long roomId) {
+        Mono<RoomDTO> attempt = webClient.get()
+                .uri(baseUrl + "/api/rooms/{id}", roomId)
+                .retrieve()
+                .bodyToMono(RoomDTO.class)
+                .timeout(CALL_TIMEOUT);
+        return guard.call(Endpoint.GET_ROOM, attempt)
+                .doOnNext(room -> roomCache.put(roomId, room))
+                .onErrorResume(e -> !isRejected(e), e -> {
+                    log.error("Error fetching room {}: {}", roomId, e.getMessage());
+                    return Mono.empty();
+                });
+    }
+
+    // limit — сколько лучших комнат, свободных на ночи [from, to), вернуть
+    public Mono<List<RoomDTO>> fetchRecommendedRooms(int limit, LocalDate from, LocalDate to) {
+        return recommendFlight(new RecommendKey(limit, from, to))
+                .onErrorResume(e -> !isRejected(e), e -> {
+                    log.error("Error fetching recommended rooms: {}", e.getMessage());
+                    return Mono.just(Collections.emptyList());
+                });
+    }
+
+    private Mono<List<RoomDTO>> recommendFlight(RecommendKey key) {
+        Mono<List<RoomDTO>> flight = recommendFlights.get(key);
+        if (flight != null) {
+            return flight;
         }
+        if (recommendFlights.size() >= MAX_RECOMMEND_FLIGHTS) {
+            return requestRecommendedRooms(key);
+        }
+        // Ответ и ошибку получают только те, кто ждал этот запрос
+        return recommendFlights.computeIfAbsent(key, k -> requestRecommendedRooms(k)
+                .doFinally(signal -> recommendFlights.remove(k))
+                .cache(rooms -> Duration.ZERO, e -> Duration.ZERO, () -> Duration.ZERO));
+    }
+
+    // Список общий для всех склеенных подписчиков, поэтому отдаётся неизменяемым
+    private Mono<List<RoomDTO>> requestRecommendedRooms(RecommendKey key) {
+        Mono<List<RoomDTO>> attempt = webClient.get()
+                .uri(baseUrl + "/api/rooms/recommend?limit={limit}&from={from}&to={to}", key.limit(), key.from(), key.to())
+                .retrieve()
+                .bodyToFlux(RoomDTO.class)
+                .collectList()
+                .<List<RoomDTO>>map(List::copyOf)
+                .doOnSubscribe(s -> recommendUpstreamCounter.increment());
+        return withRetry(Endpoint.RECOMMEND, attempt);
     }
 
-    public void releaseRoom(Long roomId, String requestId) {
-        try {
-            webClient.post()
-                    .uri(uriBuilder -> uriBuilder
-                            .path(baseUrl + "/api/rooms/{id}/release")
-                            .queryParam("requestId", requestId)
-                            .build(roomId))
-                    .retrieve()
-                    .bodyToMono(Void.class)
-                    .timeout(Duration.ofSeconds(5))
-                    .retryWhen(Retry.backoff(3, Duration.ofSeconds(1)))
-                    .block();
-        } catch (Exception e) {
-            log.error("Error releasing room {}: {}", roomId, e.getMessage());
+    public Mono<Boolean> confirmRoomAvailabilityAsync(Long roomId, ConfirmAvailabilityRequest req) {
+        Mono<Boolean> attempt = webClient.post()
+                .uri(baseUrl + "/api/rooms/{id}/confirm-availability", roomId)
+                .bodyValue(req)
+                .retrieve()
+                .bodyToMono(Boolean.class);
+        return withRetry(Endpoint.CONFIRM, attempt)
+                .map(Boolean.TRUE::equals)
+                .defaultIfEmpty(false)
+                .onErrorResume(e -> !isRejected(e), e -> {
+                    log.error("Error confirming availability for room {}: {}", roomId, e.getMessage());
+                    return Mono.just(false);
+                });
+    }
+
+    // Групповое удержание за один сетевой вызов; при ошибке — confirmed=false
+    public Mono<BatchConfirmAvailabilityResponse> confirmRoomsAvailabilityBatch(BatchConfirmAvailabilityRequest req) {
+        Mono<BatchConfirmAvailabilityResponse> attempt = webClient.post()
+                .uri(baseUrl + "/api/rooms/confirm-availability:batch")
+                .bodyValue(req)
+                .retrieve()
+                .bodyToMono(BatchConfirmAvailabilityResponse.class);
+        return withRetry(Endpoint.CONFIRM_BATCH, attempt)
+                .onErrorResume(e -> !isRejected(e), e -> {
+                    log.error("Error confirming batch {}: {}", req.getRequestId(), e.getMessage());
+                    return Mono.empty();
+                })
+                .defaultIfEmpty(new BatchConfirmAvailabilityResponse(false, Collections.emptyList()));
+    }
+
+    // true — hotel-service подтвердил освобождение всей пачки; отказ guard — тоже false, outbox повторит позже
+    public Mono<Boolean> releaseRoomsAsync(List<RoomHoldDTO> holds) {
+        Mono<Boolean> attempt = webClient.post()
+                .uri(baseUrl + "/api/rooms/release:batch")
+                .bodyValue(holds)
+                .retrieve()
+                .toBodilessEntity()
+                .map(response -> true);
+        return withRetry(Endpoint.RELEASE_BATCH, attempt)
+                .onErrorResume(e -> {
+                    log.error("Error releasing {} rooms: {}", holds.size(), e.getMessage());
+                    return Mono.just(false);
+                });
+    }
+
+    // true — hotel-service принял подтверждение всей пачки броней; иначе outbox повторит позже
+    public Mono<Boolean> commitRoomsAsync(List<RoomReservationDTO> reservations) {
+        Mono<Boolean> attempt = webClient.post()
+                .uri(baseUrl + "/api/rooms/commit:batch")
+                .bodyValue(reservations)
+                .retrieve()
+                .toBodilessEntity()
+                .map(response -> true);
+        return withRetry(Endpoint.COMMIT_BATCH, attempt)
+                .onErrorResume(e -> {
+                    log.error("Error committing {} rooms: {}", reservations.size(), e.getMessage());
+                    return Mono.just(false);
+                });
+    }
+
+    /**
+     * Каждая попытка, включая повторы, берёт разрешение у guard и ограничена таймаутом.
+     * Отказы guard и ответы 4xx не повторяются: при деградации hotel-service повторы
+     * не умножают нагрузку, а при открытом breaker вызов завершается сразу.
+     */
+    private <T> Mono<T> withRetry(Endpoint endpoint, Mono<T> attempt) {
+        return guard.call(endpoint, attempt.timeout(CALL_TIMEOUT))
+                .retryWhen(Retry.backoff(MAX_RETRIES, Duration.ofSeconds(1)).filter(HotelServiceClient::isRetryable));
+    }
+
+    private static boolean isRejected(Throwable e) {
+        return e instanceof HotelServiceUnavailableException;
+    }
+
+    private static boolean isRetryable(Throwable e) {
+        if (e instanceof WebClientResponseException response) {
+            return !response.getStatusCode().is4xxClientError();
         }
+        return !isRejected(e);
+    }
+
+    private record RecommendKey(int limit, LocalDate from, LocalDate to) {
     }
 }
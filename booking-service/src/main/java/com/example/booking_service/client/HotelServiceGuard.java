@@ -0,0 +1,144 @@
+package com.example.booking_service.client;
+
+import com.example.booking_service.exception.HotelServiceUnavailableException;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Общая защита вызовов hotel-service: bulkhead на эндпоинт, адаптивный лимит параллельности
+ * и circuit breaker на сервис целиком. Каждая попытка (в том числе повтор) проходит все три
+ * проверки; отказ — {@link HotelServiceUnavailableException} без обращения к сети.
+ * <p>
+ * Ошибкой для breaker считаются таймауты, сетевые ошибки и 5xx; 4xx — нормальный ответ.
+ * Лимит срезается по таймаутам и ответам 503/429, остальные ответы дают замер времени.
+ */
+@Component
+public class HotelServiceGuard {
+
+    public enum Endpoint {
+        GET_ROOM, RECOMMEND, CONFIRM, CONFIRM_BATCH, RELEASE_BATCH, COMMIT_BATCH;
+
+        private final String tag = name().toLowerCase().replace('_', '-');
+    }
+
+    private final AdaptiveConcurrencyLimiter limiter;
+    private final CircuitBreaker circuitBreaker;
+    private final Map<Endpoint, Semaphore> bulkheads = new EnumMap<>(Endpoint.class);
+    private final MeterRegistry meterRegistry;
+
+    public HotelServiceGuard(@Value("${hotel-service.resilience.limit.initial:20}") int initialLimit,
+                             @Value("${hotel-service.resilience.limit.min:4}") int minLimit,
+                             @Value("${hotel-service.resilience.limit.max:200}") int maxLimit,
+                             @Value("${hotel-service.resilience.circuit.window:20}") int circuitWindow,
+                             @Value("${hotel-service.resilience.circuit.min-calls:10}") int circuitMinCalls,
+                             @Value("${hotel-service.resilience.circuit.failure-rate-percent:50}") double failureRatePercent,
+                             @Value("${hotel-service.resilience.circuit.open-ms:5000}") long openMillis,
+                             @Value("${hotel-service.resilience.circuit.half-open-probes:3}") int halfOpenProbes,
+                             @Value("${hotel-service.resilience.bulkhead.max-concurrent:50}") int bulkheadSize,
+                             MeterRegistry meterRegistry) {
+        this.limiter = new AdaptiveConcurrencyLimiter(initialLimit, minLimit, maxLimit, 1000);
+        this.circuitBreaker = new CircuitBreaker("hotel-service", circuitWindow, circuitMinCalls,
+                failureRatePercent, openMillis, halfOpenProbes);
+        this.meterRegistry = meterRegistry;
+
+        Gauge.builder("hotel.client.concurrency.limit", limiter, AdaptiveConcurrencyLimiter::getLimit)
+                .description("Adaptive limit of concurrent calls to hotel-service")
+                .register(meterRegistry);
+        Gauge.builder("hotel.client.inflight", limiter, AdaptiveConcurrencyLimiter::getInFlight)
+                .description("Calls to hotel-service in flight")
+                .register(meterRegistry);
+        // 0 — CLOSED, 1 — HALF_OPEN, 2 — OPEN
+        Gauge.builder("hotel.client.circuit.state", circuitBreaker, cb -> cb.getState().ordinal())
+                .description("Circuit breaker state for hotel-service")
+                .register(meterRegistry);
+        for (Endpoint endpoint : Endpoint.values()) {
+            Semaphore bulkhead = new Semaphore(bulkheadSize);
+            bulkheads.put(endpoint, bulkhead);
+            Gauge.builder("hotel.client.bulkhead.available", bulkhead, Semaphore::availablePermits)
+                    .tag("endpoint", endpoint.tag)
+                    .register(meterRegistry);
+        }
+    }
+
+    public <T> Mono<T> call(Endpoint endpoint, Mono<T> request) {
+        return Mono.defer(() -> {
+            Semaphore bulkhead = bulkheads.get(endpoint);
+            if (!bulkhead.tryAcquire()) {
+                return reject(endpoint, "bulkhead");
+            }
+            if (!limiter.tryAcquire()) {
+                bulkhead.release();
+                return reject(endpoint, "limit");
+            }
+            CircuitBreaker.Permission permission = circuitBreaker.tryAcquire();
+            if (permission == CircuitBreaker.Permission.DENIED) {
+                limiter.releaseIgnored();
+                bulkhead.release();
+                return reject(endpoint, "circuit_open");
+            }
+
+            long start = System.nanoTime();
+            // Разрешения возвращаются ровно один раз, каким бы сигналом ни завершился вызов
+            AtomicBoolean finished = new AtomicBoolean();
+            return request
+                    .doOnSuccess(value -> {
+                        if (finished.compareAndSet(false, true)) {
+                            limiter.release(System.nanoTime() - start, false);
+                            circuitBreaker.onSuccess(permission);
+                            bulkhead.release();
+                        }
+                    })
+                    .doOnError(e -> {
+                        if (finished.compareAndSet(false, true)) {
+                            limiter.release(System.nanoTime() - start, isOverload(e));
+                            if (isFailure(e)) {
+                                circuitBreaker.onFailure(permission);
+                            } else {
+                                circuitBreaker.onSuccess(permission);
+                            }
+                            bulkhead.release();
+                        }
+                    })
+                    .doOnCancel(() -> {
+                        if (finished.compareAndSet(false, true)) {
+                            limiter.releaseIgnored();
+                            circuitBreaker.onIgnored(permission);
+                            bulkhead.release();
+                        }
+                    });
+        });
+    }
+
+    private <T> Mono<T> reject(Endpoint endpoint, String reason) {
+        meterRegistry.counter("hotel.client.rejections", "endpoint", endpoint.tag, "reason", reason).increment();
+        return Mono.error(new HotelServiceUnavailableException(endpoint.tag, reason));
+    }
+
+    // Сервис не ответил или ответил ошибкой сервера
+    private static boolean isFailure(Throwable e) {
+        if (e instanceof WebClientResponseException response) {
+            return response.getStatusCode().is5xxServerError();
+        }
+        return e instanceof TimeoutException || e instanceof WebClientRequestException;
+    }
+
+    // Явные признаки перегрузки — лимит нужно срезать, не дожидаясь роста задержки
+    private static boolean isOverload(Throwable e) {
+        if (e instanceof WebClientResponseException response) {
+            int status = response.getStatusCode().value();
+            return status == 503 || status == 429;
+        }
+        return e instanceof TimeoutException;
+    }
+}
@@ -12,6 +12,7 @@ import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 
 @Component
 public class DataInitializer {
@@ -39,7 +40,7 @@ public class DataInitializer {
 
             bookingRepo.save(new Booking(null, user, 1L,
                     LocalDate.now().plusDays(1), LocalDate.now().plusDays(3),
-                    BookingStatus.CONFIRMED, null, "seed-req-1"));
+                    BookingStatus.CONFIRMED, LocalDateTime.now(), "seed-req-1", null));
         }
     }
 }
@@ -0,0 +1,22 @@
+package com.example.booking_service.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+@Configuration
+public class SchedulerConfig {
+
+    // Планировщик для блокирующих вызовов JPA из реактивной цепочки бронирования.
+    // В режиме виртуальных потоков каждый вызов получает свой виртуальный поток.
+    @Bean
+    public Scheduler jdbcScheduler(@Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        if (virtualThreads) {
+            return Schedulers.fromExecutor(new VirtualThreadTaskExecutor("booking-jdbc-"));
+        }
+        return Schedulers.boundedElastic();
+    }
+}
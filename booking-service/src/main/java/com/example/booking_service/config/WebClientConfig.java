@@ -1,5 +1,7 @@
 package com.example.booking_service.config;
 
+import com.example.booking_service.security.GatewayIdentity;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cloud.client.loadbalancer.LoadBalanced;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -8,9 +10,12 @@ import org.springframework.web.reactive.function.client.WebClient;
 @Configuration
 public class WebClientConfig {
 
+    // Внутренние эндпоинты hotel-service принимают только подписанную служебную личность
     @Bean
     @LoadBalanced
-    public WebClient.Builder webClientBuilder() {
-        return WebClient.builder();
+    public WebClient.Builder webClientBuilder(GatewayIdentity gatewayIdentity,
+                                              @Value("${spring.application.name}") String serviceName) {
+        return WebClient.builder()
+                .filter(gatewayIdentity.serviceCredentials(serviceName));
     }
 }
@@ -1,7 +1,9 @@
 package com.example.booking_service.controllers;
 
 import com.example.booking_service.dto.BookingDTO;
+import com.example.booking_service.dto.BookingSliceDTO;
 import com.example.booking_service.dto.CreateBookingRequest;
+import com.example.booking_service.dto.CreateGroupBookingRequest;
 import com.example.booking_service.service.BookingService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
@@ -15,6 +17,10 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
 
 
 @Tag(name = "Booking Management", description = "Hotel room booking operations with pagination")
@@ -23,6 +29,10 @@ import org.springframework.web.bind.annotation.*;
 @SecurityRequirement(name = "Bearer Authentication")
 public class BookingController {
 
+    // requestId = <username>:<key> должен уместиться в колонку bookings.request_id
+    private static final int MAX_IDEMPOTENCY_KEY_LENGTH = 128;
+    private static final int MAX_SLICE_SIZE = 100;
+
     private final BookingService bookingService;
 
     public BookingController(BookingService bookingService) {
@@ -32,13 +42,32 @@ public class BookingController {
     @PostMapping
     @PreAuthorize("hasAnyRole('USER','ADMIN')")
     @Operation(summary = "Create booking",
-            description = "Create a new booking. Set autoSelect=true for automatic room selection")
-    public ResponseEntity<BookingDTO> createBooking(
+            description = "Create a new booking. Set autoSelect=true for automatic room selection. "
+                    + "Repeat with the same Idempotency-Key header to get the original result instead of a new booking; "
+                    + "reusing the key with another room or dates returns 422")
+    public Mono<ResponseEntity<BookingDTO>> createBooking(
             @RequestBody @Valid CreateBookingRequest request,
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey,
+            Authentication authentication) {
+        if (idempotencyKey != null && (idempotencyKey.isBlank() || idempotencyKey.length() > MAX_IDEMPOTENCY_KEY_LENGTH)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Idempotency-Key must be 1.." + MAX_IDEMPOTENCY_KEY_LENGTH + " characters");
+        }
+        String username = authentication.getName();
+        return bookingService.createBookingAsync(request, username, idempotencyKey)
+                .map(booking -> ResponseEntity.status(HttpStatus.CREATED).body(booking));
+    }
+
+    @PostMapping("/group")
+    @PreAuthorize("hasAnyRole('USER','ADMIN')")
+    @Operation(summary = "Create group booking",
+            description = "Book several rooms at once: either explicit roomIds or roomCount rooms in hotelId. All or nothing")
+    public Mono<ResponseEntity<List<BookingDTO>>> createGroupBooking(
+            @RequestBody @Valid CreateGroupBookingRequest request,
             Authentication authentication) {
         String username = authentication.getName();
-        BookingDTO booking = bookingService.createBooking(request, username);
-        return ResponseEntity.status(HttpStatus.CREATED).body(booking);
+        return bookingService.createGroupBookingAsync(request, username)
+                .map(bookings -> ResponseEntity.status(HttpStatus.CREATED).body(bookings));
     }
 
     @GetMapping
@@ -62,6 +91,31 @@ public class BookingController {
         return ResponseEntity.ok(page);
     }
 
+    // Keyset-пагинация: следующая страница запрашивается с cursor = nextCursor
+    @GetMapping("/cursor")
+    @PreAuthorize("hasAnyRole('USER','ADMIN')")
+    @Operation(summary = "Get user bookings by cursor",
+            description = "Newest first. Pass nextCursor from the previous response to get the next page")
+    public ResponseEntity<BookingSliceDTO> getUserBookingsSlice(
+            Authentication authentication,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") int size) {
+        validateSliceSize(size);
+        // Личность от шлюза несёт id пользователя — тогда обходимся без поиска по username
+        Long userId = authentication.getDetails() instanceof Long id ? id : null;
+        return ResponseEntity.ok(bookingService.getUserBookingsSlice(authentication.getName(), userId, cursor, size));
+    }
+
+    @GetMapping("/all/cursor")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Get all bookings by cursor (Admin only)",
+            description = "Newest first. Pass nextCursor from the previous response to get the next page")
+    public ResponseEntity<BookingSliceDTO> getAllBookingsSlice(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size) {
+        validateSliceSize(size);
+        return ResponseEntity.ok(bookingService.getAllBookingsSlice(cursor, size));
+    }
 
     @DeleteMapping("/{id}")
     @PreAuthorize("hasAnyRole('USER','ADMIN')")
@@ -74,4 +128,10 @@ public class BookingController {
         bookingService.cancelBooking(id, username);
         return ResponseEntity.noContent().build();
     }
+
+    private static void validateSliceSize(int size) {
+        if (size <= 0 || size > MAX_SLICE_SIZE) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "'size' must be between 1 and " + MAX_SLICE_SIZE);
+        }
+    }
 }
@@ -0,0 +1,38 @@
+package com.example.booking_service.controllers;
+
+import com.example.booking_service.client.HotelServiceClient;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/admin/room-cache")
+@Tag(name = "Room Cache", description = "Near-cache of hotel-service rooms")
+@SecurityRequirement(name = "Bearer Authentication")
+public class RoomCacheController {
+
+    private final HotelServiceClient hotelServiceClient;
+
+    public RoomCacheController(HotelServiceClient hotelServiceClient) {
+        this.hotelServiceClient = hotelServiceClient;
+    }
+
+    @DeleteMapping
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Invalidate room cache (Admin only)", description = "Drop all cached rooms")
+    public ResponseEntity<Void> invalidateAll() {
+        hotelServiceClient.invalidateRooms();
+        return ResponseEntity.noContent().build();
+    }
+
+    @DeleteMapping("/{roomId}")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Invalidate cached room (Admin only)", description = "Drop one room from the cache")
+    public ResponseEntity<Void> invalidate(@PathVariable Long roomId) {
+        hotelServiceClient.invalidateRoom(roomId);
+        return ResponseEntity.noContent().build();
+    }
+}
@@ -0,0 +1,21 @@
+package com.example.booking_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchConfirmAvailabilityRequest {
+    private String requestId;
+    // Либо конкретные комнаты, либо roomCount комнат в отеле hotelId
+    private List<Long> roomIds;
+    private Long hotelId;
+    private Integer roomCount;
+    private LocalDate startDate;
+    private LocalDate endDate;
+}
@@ -1,5 +1,6 @@
 package com.example.booking_service.dto;
 
+import com.example.booking_service.entity.BookingStatus;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -20,4 +21,10 @@ public class BookingDTO {
     private LocalDate endDate;
     private String status;
     private LocalDateTime createdAt;
+
+    // Для constructor expression в JPQL (BookingRepository.DTO_SELECT): статус выбирается как enum
+    public BookingDTO(Long id, Long userId, Long roomId, LocalDate startDate, LocalDate endDate,
+                      BookingStatus status, LocalDateTime createdAt) {
+        this(id, userId, roomId, startDate, endDate, status.name(), createdAt);
+    }
 }
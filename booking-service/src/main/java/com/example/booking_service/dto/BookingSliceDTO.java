@@ -0,0 +1,16 @@
+package com.example.booking_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookingSliceDTO {
+    private List<BookingDTO> items;
+    // Курсор следующей страницы; null — страниц больше нет
+    private String nextCursor;
+}
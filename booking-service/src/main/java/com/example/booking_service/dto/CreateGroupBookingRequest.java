@@ -0,0 +1,38 @@
+package com.example.booking_service.dto;
+
+import jakarta.validation.constraints.Future;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CreateGroupBookingRequest {
+    // Тот же предел, что у hotel-service для групповых удержаний
+    public static final int MAX_ROOMS = 50;
+
+    // Конкретные комнаты; если не заданы — roomCount комнат в отеле hotelId
+    @Size(max = MAX_ROOMS)
+    private List<Long> roomIds;
+
+    private Long hotelId;
+
+    @Positive @Max(MAX_ROOMS)
+    private Integer roomCount;
+
+    @NotNull @Future
+    private LocalDate startDate;
+
+    @NotNull @Future
+    private LocalDate endDate;
+}
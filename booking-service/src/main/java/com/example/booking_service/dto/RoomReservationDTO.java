@@ -0,0 +1,17 @@
+package com.example.booking_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RoomReservationDTO {
+    private Long roomId;
+    private String requestId;
+    private LocalDate startDate;
+    private LocalDate endDate;
+}
@@ -5,13 +5,16 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
-import org.springframework.data.annotation.Id;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "bookings")
+// Индексы под keyset-пагинацию истории: (created_at, id) по убыванию, для пользователя и для всех
+@Table(name = "bookings", indexes = {
+        @Index(name = "idx_bookings_user_created", columnList = "user_id, created_at, id"),
+        @Index(name = "idx_bookings_created", columnList = "created_at, id")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -43,4 +46,8 @@ public class Booking {
 
     @Column(name = "request_id", unique = true)
     private String requestId;
+
+    // Параметры запроса с Idempotency-Key: повтор ключа с другими параметрами — 422
+    @Column(name = "request_fingerprint")
+    private String requestFingerprint;
 }
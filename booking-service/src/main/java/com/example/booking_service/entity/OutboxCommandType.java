@@ -0,0 +1,5 @@
+package com.example.booking_service.entity;
+
+public enum OutboxCommandType {
+    RELEASE, COMMIT
+}
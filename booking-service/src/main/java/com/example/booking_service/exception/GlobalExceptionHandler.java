@@ -2,6 +2,7 @@ package com.example.booking_service.exception;
 
 
 import com.example.booking_service.dto.ErrorResponse;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.FieldError;
@@ -28,6 +29,27 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(errors);
     }
 
+    // hotel-service деградировал, вызов отклонён без обращения к сети — клиенту стоит повторить чуть позже
+    @ExceptionHandler(HotelServiceUnavailableException.class)
+    public ResponseEntity<ErrorResponse> handleHotelServiceUnavailable(HotelServiceUnavailableException ex) {
+        ErrorResponse error = new ErrorResponse(
+                ex.getReason(),
+                LocalDateTime.now()
+        );
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(error);
+    }
+
+    @ExceptionHandler(IdempotencyKeyMismatchException.class)
+    public ResponseEntity<ErrorResponse> handleIdempotencyKeyMismatch(IdempotencyKeyMismatchException ex) {
+        ErrorResponse error = new ErrorResponse(
+                ex.getReason(),
+                LocalDateTime.now()
+        );
+        return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY).body(error);
+    }
+
     @ExceptionHandler(RuntimeException.class)
     public ResponseEntity<ErrorResponse> handleRuntimeException(RuntimeException ex) {
         ErrorResponse error = new ErrorResponse(
@@ -0,0 +1,21 @@
+package com.example.booking_service.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * Вызов hotel-service отклонён на стороне клиента, не дойдя до сети: открыт circuit breaker,
+ * исчерпан адаптивный лимит или bulkhead эндпоинта. Отвечаем 503, клиент может повторить позже.
+ */
+public class HotelServiceUnavailableException extends ResponseStatusException {
+
+    public HotelServiceUnavailableException(String endpoint, String reason) {
+        super(HttpStatus.SERVICE_UNAVAILABLE, "hotel-service unavailable: " + reason + " (" + endpoint + ")");
+    }
+
+    // Отказы массовые и ожидаемые при деградации — стек не нужен
+    @Override
+    public synchronized Throwable fillInStackTrace() {
+        return this;
+    }
+}
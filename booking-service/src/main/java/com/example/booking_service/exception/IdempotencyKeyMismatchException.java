@@ -0,0 +1,15 @@
+package com.example.booking_service.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * Idempotency-Key уже использован с другими комнатой или датами. Отвечаем 422:
+ * повтор с этим ключом не может вернуть исходную бронь.
+ */
+public class IdempotencyKeyMismatchException extends ResponseStatusException {
+
+    public IdempotencyKeyMismatchException() {
+        super(HttpStatus.UNPROCESSABLE_ENTITY, "Idempotency-Key was already used with different request parameters");
+    }
+}
@@ -1,14 +1,15 @@
 package com.example.booking_service.repository;
 
+import com.example.booking_service.dto.BookingDTO;
 import com.example.booking_service.entity.Booking;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
-import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
@@ -16,6 +17,11 @@ import java.util.Optional;
 @Repository
 public interface BookingRepository extends JpaRepository<Booking, Long> {
 
+    // Проекция для чтения: только колонки BookingDTO одним SELECT, без сущностей в контексте
+    // и без подгрузки User (b.user.id — это внешний ключ в самой строке bookings)
+    String DTO_SELECT = "SELECT new com.example.booking_service.dto.BookingDTO(" +
+            "b.id, b.user.id, b.roomId, b.startDate, b.endDate, b.status, b.createdAt) FROM Booking b ";
+
     // Получение всех бронирований пользователя (без пагинации)
     List<Booking> findByUserId(Long userId);
 
@@ -36,14 +42,38 @@ public interface BookingRepository extends JpaRepository<Booking, Long> {
     );
 
     // Пагинированный список бронирований пользователя по username
-    @Query("SELECT b FROM Booking b WHERE b.user.username = :username")
-    Page<Booking> findByUserUsername(@Param("username") String username, Pageable pageable);
+    @Query(value = DTO_SELECT + "WHERE b.user.username = :username",
+            countQuery = "SELECT COUNT(b) FROM Booking b WHERE b.user.username = :username")
+    Page<BookingDTO> findByUserUsername(@Param("username") String username, Pageable pageable);
+
+    @Query(value = DTO_SELECT, countQuery = "SELECT COUNT(b) FROM Booking b")
+    Page<BookingDTO> findAllDTOs(Pageable pageable);
+
+    // Keyset-пагинация истории от новых к старым: следующая страница начинается после (createdAt, id)
+    // последней строки; Slice читает size + 1 строк вместо COUNT(*)
+    @Query(DTO_SELECT + "WHERE b.user.id = :userId ORDER BY b.createdAt DESC, b.id DESC")
+    Slice<BookingDTO> findLatestByUserId(@Param("userId") Long userId, Pageable pageable);
+
+    @Query(DTO_SELECT + "WHERE b.user.id = :userId " +
+            "AND (b.createdAt < :createdAt OR (b.createdAt = :createdAt AND b.id < :id)) " +
+            "ORDER BY b.createdAt DESC, b.id DESC")
+    Slice<BookingDTO> findByUserIdBefore(@Param("userId") Long userId,
+                                      @Param("createdAt") LocalDateTime createdAt,
+                                      @Param("id") Long id,
+                                      Pageable pageable);
+
+    @Query(DTO_SELECT + "ORDER BY b.createdAt DESC, b.id DESC")
+    Slice<BookingDTO> findLatest(Pageable pageable);
 
-    // Список ID занятых комнат за период
-    @Query("SELECT b.roomId FROM Booking b WHERE b.status = 'CONFIRMED' " +
-            "AND ((b.startDate <= :endDate AND b.endDate >= :startDate))")
-    List<Long> findBookedRoomIds(@Param("startDate") LocalDate startDate,
-                                 @Param("endDate") LocalDate endDate);
+    @Query(DTO_SELECT +
+            "WHERE b.createdAt < :createdAt OR (b.createdAt = :createdAt AND b.id < :id) " +
+            "ORDER BY b.createdAt DESC, b.id DESC")
+    Slice<BookingDTO> findBefore(@Param("createdAt") LocalDateTime createdAt,
+                              @Param("id") Long id,
+                              Pageable pageable);
 
+    // Интервалы подтверждённых бронирований для BookingIntervalIndex: id, roomId, startDate, endDate
+    @Query("SELECT b.id, b.roomId, b.startDate, b.endDate FROM Booking b WHERE b.status = 'CONFIRMED'")
+    List<Object[]> findConfirmedIntervals();
 
 }
@@ -0,0 +1,22 @@
+package com.example.booking_service.repository;
+
+import com.example.booking_service.entity.OutboxCommand;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface OutboxCommandRepository extends JpaRepository<OutboxCommand, Long> {
+    // Очередная пачка команд, срок повтора которых наступил. Строки блокируются до конца транзакции;
+    // уже заблокированные другим экземпляром пропускаются (timeout -2 — SKIP LOCKED в Hibernate)
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    List<OutboxCommand> findByNextAttemptAtLessThanEqualOrderByIdAsc(LocalDateTime now, Pageable pageable);
+}
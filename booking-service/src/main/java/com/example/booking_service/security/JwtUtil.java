@@ -1,29 +1,59 @@
 package com.example.booking_service.security;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.stereotype.Component;
 
+import java.nio.charset.StandardCharsets;
 import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 
+/**
+ * Проверка JWT. Ключ и парсер строятся один раз при старте; {@code jwt.secret} обязателен
+ * и, как у выпускающего токены booking-service, задаётся в base64 (не короче 256 бит).
+ * <p>
+ * Уже проверенные токены кешируются по SHA-256 от токена до их exp: повторный запрос
+ * с тем же токеном получает Authentication без повторной проверки подписи.
+ * Кеш ограничен {@code jwt.cache.max-size}, лишние записи вытесняет Caffeine.
+ */
 @Component
 public class JwtUtil {
+    private final JwtParser parser;
+    private final Cache<String, VerifiedToken> verified;
 
-    @Value("${jwt.secret}")
-    private String secret;
-
-    @Value("${jwt.expiration}")
-    private Long expiration;
+    public JwtUtil(@Value("${jwt.secret}") String secret,
+                   @Value("${jwt.cache.max-size:10000}") int cacheMaxSize) {
+        Key signingKey;
+        try {
+            signingKey = Keys.hmacShaKeyFor(Decoders.BASE64.decode(secret));
+        } catch (RuntimeException e) {
+            throw new IllegalStateException("jwt.secret must be a base64-encoded key of at least 256 bits", e);
+        }
+        this.parser = Jwts.parserBuilder().setSigningKey(signingKey).build();
+        this.verified = Caffeine.newBuilder()
+                .maximumSize(cacheMaxSize)
+                .expireAfter(new UntilTokenExpiry())
+                .build();
+    }
 
     public Claims extractAllClaims(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+        return parser.parseClaimsJws(token).getBody();
     }
 
     public String extractUsername(String token) {
@@ -35,19 +65,61 @@ public class JwtUtil {
     }
 
     public boolean validateToken(String token) {
+        return resolveAuthentication(token).isPresent();
+    }
+
+    // Единственная точка входа для фильтра: одна проверка подписи на токен за время его жизни
+    public Optional<Authentication> resolveAuthentication(String token) {
+        String key = hash(token);
+        VerifiedToken cached = verified.getIfPresent(key);
+        if (cached != null) {
+            return Optional.of(cached.toAuthentication());
+        }
+
+        Claims claims;
         try {
-            Jwts.parserBuilder()
-                    .setSigningKey(getSigningKey())
-                    .build()
-                    .parseClaimsJws(token);
-            return true;
+            claims = extractAllClaims(token);
         } catch (Exception e) {
-            return false;
+            return Optional.empty();
+        }
+        VerifiedToken entry = new VerifiedToken(claims.getSubject(),
+                List.of(new SimpleGrantedAuthority("ROLE_" + claims.get("role", String.class))),
+                claims.getExpiration() == null ? Long.MAX_VALUE : claims.getExpiration().getTime());
+        verified.put(key, entry);
+        return Optional.of(entry.toAuthentication());
+    }
+
+    private static String hash(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // Запись живёт ровно до exp токена
+    private static final class UntilTokenExpiry implements Expiry<String, VerifiedToken> {
+        @Override
+        public long expireAfterCreate(String key, VerifiedToken token, long currentTime) {
+            long remainingMillis = token.expiresAt() - System.currentTimeMillis();
+            return TimeUnit.MILLISECONDS.toNanos(Math.max(0, remainingMillis));
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, VerifiedToken token, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, token, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String key, VerifiedToken token, long currentTime, long currentDuration) {
+            return currentDuration;
         }
     }
 
-    private Key getSigningKey() {
-        byte[] keyBytes = Decoders.BASE64.decode(secret);
-        return Keys.hmacShaKeyFor(keyBytes);
+    private record VerifiedToken(String username, List<GrantedAuthority> authorities, long expiresAt) {
+        Authentication toAuthentication() {
+            return new UsernamePasswordAuthenticationToken(username, null, authorities);
+        }
     }
 }
@@ -0,0 +1,41 @@
+package com.example.booking_service.service;
+
+import com.example.booking_service.dto.BookingDTO;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+import static org.springframework.http.HttpStatus.BAD_REQUEST;
+
+/**
+ * Позиция в истории бронирований: (createdAt, id) последней отданной строки.
+ * Клиенту отдаётся непрозрачной строкой base64url, формат внутри может меняться.
+ */
+record BookingCursor(LocalDateTime createdAt, Long id) {
+
+    static BookingCursor of(BookingDTO booking) {
+        return new BookingCursor(booking.getCreatedAt(), booking.getId());
+    }
+
+    String encode() {
+        String raw = createdAt + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static BookingCursor decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.indexOf('|');
+            if (separator < 0) {
+                throw new IllegalArgumentException("Missing separator");
+            }
+            return new BookingCursor(LocalDateTime.parse(raw.substring(0, separator)),
+                    Long.valueOf(raw.substring(separator + 1)));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new ResponseStatusException(BAD_REQUEST, "Invalid cursor");
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.booking_service.service;
+
+import com.example.booking_service.dto.BookingDTO;
+import com.example.booking_service.exception.IdempotencyKeyMismatchException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Склейка повторов POST /booking с одинаковым Idempotency-Key.
+ * <p>
+ * Пока сага выполняется, повторы подписываются на тот же закешированный Mono и получают
+ * его результат (успех или ошибку). Успешные ответы хранятся ещё {@code booking.idempotency.ttl-ms}
+ * и отдаются без обращения к БД и hotel-service. Кеш ограничен {@code booking.idempotency.max-size};
+ * после вытеснения повтор отвечает по записи в БД (Booking.requestId).
+ * <p>
+ * Вместе с ключом хранится отпечаток параметров запроса: повтор ключа с другими параметрами
+ * получает 422, а не чужой результат.
+ */
+@Component
+public class BookingIdempotencyCache {
+
+    private final Map<String, Flight> inFlight = new ConcurrentHashMap<>();
+    private final Map<String, Completed> completed = new ConcurrentHashMap<>();
+    private final long ttlMillis;
+    private final int maxSize;
+
+    public BookingIdempotencyCache(@Value("${booking.idempotency.ttl-ms:600000}") long ttlMillis,
+                                   @Value("${booking.idempotency.max-size:10000}") int maxSize) {
+        this.ttlMillis = ttlMillis;
+        this.maxSize = maxSize;
+    }
+
+    public Mono<BookingDTO> execute(String requestId, String fingerprint, Supplier<Mono<BookingDTO>> saga) {
+        return Mono.defer(() -> {
+            Completed done = completed.get(requestId);
+            if (done != null) {
+                if (done.expiresAt() > System.currentTimeMillis()) {
+                    return sameRequest(done.fingerprint(), fingerprint) ? Mono.just(done.booking()) : mismatch();
+                }
+                completed.remove(requestId, done);
+            }
+            Flight flight = inFlight.computeIfAbsent(requestId, id -> new Flight(fingerprint, saga.get()
+                    .doOnNext(booking -> remember(id, fingerprint, booking))
+                    .doFinally(signal -> inFlight.remove(id))
+                    .cache()));
+            return sameRequest(flight.fingerprint(), fingerprint) ? flight.result() : mismatch();
+        });
+    }
+
+    // Записи без отпечатка (сохранённые до его появления) считаются совпавшими
+    static boolean sameRequest(String stored, String fingerprint) {
+        return stored == null || stored.equals(fingerprint);
+    }
+
+    static <T> Mono<T> mismatch() {
+        return Mono.error(new IdempotencyKeyMismatchException());
+    }
+
+    private void remember(String requestId, String fingerprint, BookingDTO booking) {
+        long now = System.currentTimeMillis();
+        if (completed.size() >= maxSize) {
+            completed.values().removeIf(done -> done.expiresAt() <= now);
+            if (completed.size() >= maxSize) {
+                return;
+            }
+        }
+        completed.put(requestId, new Completed(fingerprint, booking, now + ttlMillis));
+    }
+
+    private record Flight(String fingerprint, Mono<BookingDTO> result) {
+    }
+
+    private record Completed(String fingerprint, BookingDTO booking, long expiresAt) {
+    }
+}
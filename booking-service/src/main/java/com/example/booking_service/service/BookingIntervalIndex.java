@@ -0,0 +1,174 @@
+package com.example.booking_service.service;
+
+import com.example.booking_service.repository.BookingRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Индекс подтверждённых бронирований по комнатам.
+ * <p>
+ * Для каждой комнаты хранится неизменяемый снимок интервалов, отсортированных по дате заезда,
+ * с префиксным максимумом дат выезда. Проверка пересечения — один бинарный поиск,
+ * без аллокаций. Запись (подтверждение/отмена) копирует массивы одной комнаты.
+ */
+@Component
+@Slf4j
+public class BookingIntervalIndex {
+
+    private final ConcurrentHashMap<Long, RoomIntervals> rooms = new ConcurrentHashMap<>();
+    private final BookingRepository bookingRepository;
+
+    public BookingIntervalIndex(BookingRepository bookingRepository) {
+        this.bookingRepository = bookingRepository;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        List<Object[]> rows = bookingRepository.findConfirmedIntervals();
+        rooms.clear();
+        for (Object[] row : rows) {
+            add((Long) row[0], (Long) row[1], (LocalDate) row[2], (LocalDate) row[3]);
+        }
+        log.info("Booking interval index loaded: {} bookings, {} rooms", rows.size(), rooms.size());
+    }
+
+    // Проживание — полуинтервал ночей [start, end): день выезда одной брони может быть днём заезда другой
+    public boolean isBooked(Long roomId, LocalDate startDate, LocalDate endDate) {
+        RoomIntervals intervals = rooms.get(roomId);
+        return intervals != null && intervals.overlaps(startDate.toEpochDay(), endDate.toEpochDay());
+    }
+
+    public void add(Long bookingId, Long roomId, LocalDate startDate, LocalDate endDate) {
+        long start = startDate.toEpochDay();
+        long end = endDate.toEpochDay();
+        rooms.compute(roomId, (id, current) -> current == null
+                ? RoomIntervals.single(bookingId, start, end)
+                : current.with(bookingId, start, end));
+    }
+
+    public void remove(Long bookingId, Long roomId) {
+        rooms.computeIfPresent(roomId, (id, current) -> current.without(bookingId));
+    }
+
+    // Индекс меняется только после коммита, чтобы не увидеть откатившуюся запись
+    public void addAfterCommit(Long bookingId, Long roomId, LocalDate startDate, LocalDate endDate) {
+        afterCommit(() -> add(bookingId, roomId, startDate, endDate));
+    }
+
+    public void removeAfterCommit(Long bookingId, Long roomId) {
+        afterCommit(() -> remove(bookingId, roomId));
+    }
+
+    private void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private static final class RoomIntervals {
+        private final long[] ids;
+        private final long[] starts;
+        private final long[] ends;
+        // maxEnds[i] = max(ends[0..i])
+        private final long[] maxEnds;
+
+        private RoomIntervals(long[] ids, long[] starts, long[] ends) {
+            this.ids = ids;
+            this.starts = starts;
+            this.ends = ends;
+            this.maxEnds = new long[ends.length];
+            long max = Long.MIN_VALUE;
+            for (int i = 0; i < ends.length; i++) {
+                max = Math.max(max, ends[i]);
+                maxEnds[i] = max;
+            }
+        }
+
+        static RoomIntervals single(long id, long start, long end) {
+            return new RoomIntervals(new long[]{id}, new long[]{start}, new long[]{end});
+        }
+
+        boolean overlaps(long start, long end) {
+            // Последний интервал, начинающийся раньше дня выезда запроса
+            int lo = 0;
+            int hi = starts.length - 1;
+            int last = -1;
+            while (lo <= hi) {
+                int mid = (lo + hi) >>> 1;
+                if (starts[mid] < end) {
+                    last = mid;
+                    lo = mid + 1;
+                } else {
+                    hi = mid - 1;
+                }
+            }
+            return last >= 0 && maxEnds[last] > start;
+        }
+
+        RoomIntervals with(long id, long start, long end) {
+            if (indexOf(id) >= 0) {
+                RoomIntervals rest = without(id);
+                return rest == null ? single(id, start, end) : rest.with(id, start, end);
+            }
+            int n = starts.length;
+            int pos = 0;
+            while (pos < n && starts[pos] <= start) {
+                pos++;
+            }
+            long[] newIds = insert(ids, pos, id);
+            long[] newStarts = insert(starts, pos, start);
+            long[] newEnds = insert(ends, pos, end);
+            return new RoomIntervals(newIds, newStarts, newEnds);
+        }
+
+        RoomIntervals without(long id) {
+            int pos = indexOf(id);
+            if (pos < 0) {
+                return this;
+            }
+            if (ids.length == 1) {
+                return null;
+            }
+            return new RoomIntervals(delete(ids, pos), delete(starts, pos), delete(ends, pos));
+        }
+
+        private int indexOf(long id) {
+            for (int i = 0; i < ids.length; i++) {
+                if (ids[i] == id) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        private static long[] insert(long[] source, int pos, long value) {
+            long[] result = Arrays.copyOf(source, source.length + 1);
+            System.arraycopy(source, pos, result, pos + 1, source.length - pos);
+            result[pos] = value;
+            return result;
+        }
+
+        private static long[] delete(long[] source, int pos) {
+            long[] result = new long[source.length - 1];
+            System.arraycopy(source, 0, result, 0, pos);
+            System.arraycopy(source, pos + 1, result, pos, source.length - pos - 1);
+            return result;
+        }
+    }
+}
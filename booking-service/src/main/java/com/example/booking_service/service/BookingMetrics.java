@@ -0,0 +1,65 @@
+package com.example.booking_service.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Метрики саги бронирования: таймер с гистограммой на каждую фазу
+ * ({@code booking.create.phase}, тег phase) и счётчик исходов ({@code booking.create.outcome}, тег outcome).
+ * Гистограммы публикуются бакетами, поэтому p50/p99 считаются в Prometheus по всем экземплярам.
+ */
+@Component
+public class BookingMetrics {
+
+    public enum Phase {
+        USER_LOOKUP, ROOM_SELECT, AVAILABILITY_CHECK, PENDING_SAVE, REMOTE_CONFIRM, FINAL_SAVE, COMPENSATION
+    }
+
+    public enum Outcome {
+        CONFIRMED, CONFLICT, COMPENSATED, COMPENSATION_FAILED
+    }
+
+    private final Map<Phase, Timer> phases = new EnumMap<>(Phase.class);
+    private final Map<Outcome, Counter> outcomes = new EnumMap<>(Outcome.class);
+
+    public BookingMetrics(MeterRegistry meterRegistry) {
+        for (Phase phase : Phase.values()) {
+            phases.put(phase, Timer.builder("booking.create.phase")
+                    .description("Duration of a createBooking saga phase")
+                    .tag("phase", phase.name().toLowerCase())
+                    .publishPercentileHistogram()
+                    .register(meterRegistry));
+        }
+        for (Outcome outcome : Outcome.values()) {
+            outcomes.put(outcome, Counter.builder("booking.create.outcome")
+                    .description("createBooking results by outcome")
+                    .tag("outcome", outcome.name().toLowerCase())
+                    .register(meterRegistry));
+        }
+    }
+
+    public <T> T time(Phase phase, Supplier<T> work) {
+        return phases.get(phase).record(work);
+    }
+
+    // Отсчёт идёт с момента подписки до завершения (успех, ошибка или отмена)
+    public <T> Mono<T> time(Phase phase, Mono<T> work) {
+        Timer timer = phases.get(phase);
+        return Mono.defer(() -> {
+            long started = System.nanoTime();
+            return work.doFinally(signal -> timer.record(System.nanoTime() - started, TimeUnit.NANOSECONDS));
+        });
+    }
+
+    public void count(Outcome outcome) {
+        outcomes.get(outcome).increment();
+    }
+}
@@ -1,26 +1,41 @@
 package com.example.booking_service.service;
 
 import com.example.booking_service.client.HotelServiceClient;
+import com.example.booking_service.dto.BatchConfirmAvailabilityRequest;
 import com.example.booking_service.dto.BookingDTO;
+import com.example.booking_service.dto.BookingSliceDTO;
 import com.example.booking_service.dto.ConfirmAvailabilityRequest;
 import com.example.booking_service.dto.CreateBookingRequest;
+import com.example.booking_service.dto.CreateGroupBookingRequest;
 import com.example.booking_service.dto.RoomDTO;
+import com.example.booking_service.dto.RoomHoldDTO;
 import com.example.booking_service.entity.Booking;
 import com.example.booking_service.entity.BookingStatus;
 import com.example.booking_service.entity.User;
+import com.example.booking_service.exception.HotelServiceUnavailableException;
 import com.example.booking_service.repository.BookingRepository;
 import com.example.booking_service.repository.UserRepository;
+import com.example.booking_service.service.BookingMetrics.Outcome;
+import com.example.booking_service.service.BookingMetrics.Phase;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
 
 import java.time.LocalDateTime;
-import java.util.Collections;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
 
 import static org.springframework.http.HttpStatus.*;
 
@@ -29,50 +44,126 @@ import static org.springframework.http.HttpStatus.*;
 @Transactional
 public class BookingService {
 
+    // Кандидатов автовыбора берётся больше одного, чтобы одновременные запросы разошлись по разным комнатам
+    private static final int AUTOSELECT_CANDIDATES = 16;
+
+    private final AtomicInteger autoSelectCursor = new AtomicInteger();
     private final BookingRepository bookingRepository;
     private final UserRepository userRepository;
     private final HotelServiceClient hotelServiceClient;
+    private final BookingIntervalIndex intervalIndex;
+    private final TransactionTemplate transactionTemplate;
+    private final Scheduler jdbcScheduler;
+    private final BookingMetrics metrics;
+    private final RoomReleaseOutbox releaseOutbox;
+    private final BookingIdempotencyCache idempotencyCache;
 
     public BookingService(BookingRepository bookingRepository,
                           UserRepository userRepository,
-                          HotelServiceClient hotelServiceClient) {
+                          HotelServiceClient hotelServiceClient,
+                          BookingIntervalIndex intervalIndex,
+                          TransactionTemplate transactionTemplate,
+                          Scheduler jdbcScheduler,
+                          BookingMetrics metrics,
+                          RoomReleaseOutbox releaseOutbox,
+                          BookingIdempotencyCache idempotencyCache) {
         this.bookingRepository = bookingRepository;
         this.userRepository = userRepository;
         this.hotelServiceClient = hotelServiceClient;
+        this.intervalIndex = intervalIndex;
+        this.transactionTemplate = transactionTemplate;
+        this.jdbcScheduler = jdbcScheduler;
+        this.metrics = metrics;
+        this.releaseOutbox = releaseOutbox;
+        this.idempotencyCache = idempotencyCache;
+    }
+
+    /**
+     * Неблокирующая сага бронирования: поиск пользователя и комнаты идут параллельно,
+     * подтверждение и компенсация выполняются цепочкой без удержания потока запроса.
+     * Обращения к БД вынесены на jdbcScheduler, каждое — в своей короткой транзакции.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public Mono<BookingDTO> createBookingAsync(CreateBookingRequest request, String username) {
+        return createBookingAsync(request, username, null);
     }
 
-    public BookingDTO createBooking(CreateBookingRequest request, String username) {
+    /**
+     * То же с ключом идемпотентности: requestId брони — {@code <username>:<idempotencyKey>}.
+     * Повторы во время саги получают её результат, после — ответ из кеша или по уже сохранённой брони;
+     * новая сага (и обращение к hotel-service) запускается только для неизвестного ключа.
+     * Тот же ключ с другими комнатой или датами — 422.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public Mono<BookingDTO> createBookingAsync(CreateBookingRequest request, String username, String idempotencyKey) {
         if (request.getEndDate().isBefore(request.getStartDate().plusDays(1))) {
-            throw new ResponseStatusException(BAD_REQUEST, "End date must be after start date");
+            return Mono.error(new ResponseStatusException(BAD_REQUEST, "End date must be after start date"));
+        }
+        if (idempotencyKey == null) {
+            return startSaga(request, username, UUID.randomUUID().toString());
         }
 
-        User user = userRepository.findByUsername(username)
-                .orElseThrow(() -> new ResponseStatusException(NOT_FOUND, "User not found"));
+        String requestId = username + ":" + idempotencyKey;
+        String fingerprint = fingerprint(request);
+        return idempotencyCache.execute(requestId, fingerprint,
+                () -> inTransaction(() -> bookingRepository.findByRequestId(requestId))
+                        .flatMap(existing -> existing.isPresent()
+                                ? replay(existing.get(), fingerprint)
+                                : startSaga(request, username, requestId)));
+    }
 
-        // Получаем кандидатов
-        List<RoomDTO> candidates;
-        if (request.isAutoSelect()) {
-            candidates = hotelServiceClient.getRecommendedRooms();
-        } else {
-            RoomDTO room = hotelServiceClient.getRoom(request.getRoomId());
-            candidates = (room == null)
-                    ? Collections.emptyList()
-                    : Collections.singletonList(room);
+    // Ответ на повтор по уже сохранённой брони
+    private Mono<BookingDTO> replay(Booking existing, String fingerprint) {
+        if (!BookingIdempotencyCache.sameRequest(existing.getRequestFingerprint(), fingerprint)) {
+            return BookingIdempotencyCache.mismatch();
         }
+        return switch (existing.getStatus()) {
+            case CONFIRMED -> Mono.just(toDTO(existing));
+            case CANCELLED -> Mono.error(new ResponseStatusException(CONFLICT, "Room not available"));
+            case PENDING -> Mono.error(new ResponseStatusException(CONFLICT, "Booking is still being processed"));
+        };
+    }
 
-        if (candidates == null || candidates.isEmpty()) {
-            throw new ResponseStatusException(NOT_FOUND, "No available rooms");
-        }
+    private Mono<BookingDTO> startSaga(CreateBookingRequest request, String username, String requestId) {
+        Mono<User> user = metrics.time(Phase.USER_LOOKUP, inTransaction(() -> userRepository.findByUsername(username)
+                .orElseThrow(() -> new ResponseStatusException(NOT_FOUND, "User not found"))));
+
+        return Mono.zip(user, metrics.time(Phase.ROOM_SELECT, selectRoomId(request)))
+                .flatMap(t -> reserve(t.getT1(), t.getT2(), request, requestId));
+    }
 
-        Long roomId = candidates.get(0).getId();
+    private Mono<Long> selectRoomId(CreateBookingRequest request) {
+        Mono<Long> roomId = request.isAutoSelect()
+                ? hotelServiceClient.fetchRecommendedRooms(AUTOSELECT_CANDIDATES, request.getStartDate(), request.getEndDate())
+                        .flatMap(rooms -> Mono.justOrEmpty(pickCandidate(rooms, request)))
+                : hotelServiceClient.fetchRoom(request.getRoomId()).map(RoomDTO::getId);
+        return roomId.switchIfEmpty(Mono.error(() -> new ResponseStatusException(NOT_FOUND, "No available rooms")));
+    }
 
-        List<Long> booked = bookingRepository.findBookedRoomIds(request.getStartDate(), request.getEndDate());
-        if (booked != null && booked.contains(roomId)) {
-            throw new ResponseStatusException(CONFLICT, "Room is already booked");
+    // Склеенные запросы получают один список: каждый начинает обход со своей позиции
+    // и пропускает комнаты, уже занятые на эти даты по локальному индексу
+    private Long pickCandidate(List<RoomDTO> rooms, CreateBookingRequest request) {
+        if (rooms.isEmpty()) {
+            return null;
+        }
+        int start = Math.floorMod(autoSelectCursor.getAndIncrement(), rooms.size());
+        for (int i = 0; i < rooms.size(); i++) {
+            Long roomId = rooms.get((start + i) % rooms.size()).getId();
+            if (!intervalIndex.isBooked(roomId, request.getStartDate(), request.getEndDate())) {
+                return roomId;
+            }
+        }
+        return rooms.get(start).getId();
+    }
+
+    private Mono<BookingDTO> reserve(User user, Long roomId, CreateBookingRequest request, String requestId) {
+        if (metrics.time(Phase.AVAILABILITY_CHECK,
+                () -> intervalIndex.isBooked(roomId, request.getStartDate(), request.getEndDate()))) {
+            metrics.count(Outcome.CONFLICT);
+            return Mono.error(new ResponseStatusException(CONFLICT, "Room is already booked"));
         }
 
-        String requestId = UUID.randomUUID().toString();
-        Booking booking = Booking.builder()
+        Booking pending = Booking.builder()
                 .user(user)
                 .roomId(roomId)
                 .startDate(request.getStartDate())
@@ -80,40 +171,160 @@ public class BookingService {
                 .status(BookingStatus.PENDING)
                 .createdAt(LocalDateTime.now())
                 .requestId(requestId)
+                .requestFingerprint(fingerprint(request))
                 .build();
-        booking = bookingRepository.save(booking);
 
-        boolean confirmed = hotelServiceClient.confirmRoomAvailability(
-                roomId,
-                new ConfirmAvailabilityRequest(requestId, request.getStartDate(), request.getEndDate())
-        );
+        return metrics.time(Phase.PENDING_SAVE, inTransaction(() -> bookingRepository.save(pending)))
+                .flatMap(booking -> metrics.time(Phase.REMOTE_CONFIRM, hotelServiceClient.confirmRoomAvailabilityAsync(
+                                roomId,
+                                new ConfirmAvailabilityRequest(requestId, request.getStartDate(), request.getEndDate())))
+                        .flatMap(confirmed -> confirmed
+                                // Удержание уже взято: любая ошибка финального сохранения снимает его через outbox
+                                ? complete(booking).onErrorResume(e -> compensate(booking, e))
+                                : compensate(booking, new ResponseStatusException(CONFLICT, "Room not available")))
+                        // Вызов отклонён guard'ом до сети: бронь отменяется, клиент получает 503
+                        .onErrorResume(HotelServiceUnavailableException.class, e -> compensate(booking, e)));
+    }
 
-        if (confirmed) {
+    private Mono<BookingDTO> complete(Booking booking) {
+        return metrics.time(Phase.FINAL_SAVE, inTransaction(() -> {
             booking.setStatus(BookingStatus.CONFIRMED);
-        } else {
-            booking.setStatus(BookingStatus.CANCELLED);
-            try {
-                hotelServiceClient.releaseRoom(roomId, requestId);
-            } catch (Exception ex) {
-                log.error("Error releasing room during compensation: {}", ex.getMessage());
-            }
-            throw new ResponseStatusException(CONFLICT, "Room not available");
+            Booking saved = bookingRepository.save(booking);
+            intervalIndex.addAfterCommit(saved.getId(), saved.getRoomId(), saved.getStartDate(), saved.getEndDate());
+            // Без подтверждения удержание в hotel-service истечёт вместе с временной блокировкой
+            releaseOutbox.enqueueCommit(saved.getRoomId(), saved.getRequestId(), saved.getStartDate(), saved.getEndDate());
+            return toDTO(saved);
+        })).doOnSuccess(dto -> metrics.count(Outcome.CONFIRMED));
+    }
+
+    // Отмена и команда освобождения фиксируются одной транзакцией; саму отправку делает RoomReleaseOutbox
+    private Mono<BookingDTO> compensate(Booking booking, Throwable failure) {
+        Mono<Boolean> compensation = inTransaction(() -> {
+                    booking.setStatus(BookingStatus.CANCELLED);
+                    bookingRepository.save(booking);
+                    releaseOutbox.enqueue(booking.getRoomId(), booking.getRequestId());
+                    return true;
+                })
+                .onErrorReturn(false);
+        return metrics.time(Phase.COMPENSATION, compensation)
+                .flatMap(released -> {
+                    metrics.count(released ? Outcome.COMPENSATED : Outcome.COMPENSATION_FAILED);
+                    return Mono.<BookingDTO>error(failure);
+                });
+    }
+
+    /**
+     * Групповое бронирование: все комнаты удерживаются одним вызовом confirm-availability:batch,
+     * после чего бронирования сохраняются в одной транзакции. Если сохранить не удалось —
+     * удержания снимаются одним вызовом release:batch.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public Mono<List<BookingDTO>> createGroupBookingAsync(CreateGroupBookingRequest request, String username) {
+        if (request.getEndDate().isBefore(request.getStartDate().plusDays(1))) {
+            return Mono.error(new ResponseStatusException(BAD_REQUEST, "End date must be after start date"));
+        }
+        boolean byRoomIds = request.getRoomIds() != null && !request.getRoomIds().isEmpty();
+        if (!byRoomIds && (request.getHotelId() == null || request.getRoomCount() == null)) {
+            return Mono.error(new ResponseStatusException(BAD_REQUEST, "Either roomIds or hotelId with roomCount is required"));
+        }
+        if (byRoomIds && request.getRoomIds().stream()
+                .anyMatch(roomId -> intervalIndex.isBooked(roomId, request.getStartDate(), request.getEndDate()))) {
+            return Mono.error(new ResponseStatusException(CONFLICT, "Room is already booked"));
         }
 
-        bookingRepository.save(booking);
-        return toDTO(booking);
+        String groupRequestId = UUID.randomUUID().toString();
+        BatchConfirmAvailabilityRequest batch = new BatchConfirmAvailabilityRequest(groupRequestId,
+                request.getRoomIds(), request.getHotelId(), request.getRoomCount(),
+                request.getStartDate(), request.getEndDate());
+
+        return inTransaction(() -> userRepository.findByUsername(username)
+                        .orElseThrow(() -> new ResponseStatusException(NOT_FOUND, "User not found")))
+                .flatMap(user -> hotelServiceClient.confirmRoomsAvailabilityBatch(batch)
+                        .flatMap(response -> {
+                            if (!response.isConfirmed()) {
+                                return Mono.<List<BookingDTO>>error(new ResponseStatusException(CONFLICT, "Rooms not available"));
+                            }
+                            return saveGroup(user, response.getHolds(), request)
+                                    .onErrorResume(e -> inTransaction(() -> {
+                                                releaseOutbox.enqueueAll(response.getHolds());
+                                                return true;
+                                            })
+                                            .then(Mono.<List<BookingDTO>>error(e)));
+                        }));
+    }
+
+    private Mono<List<BookingDTO>> saveGroup(User user, List<RoomHoldDTO> holds, CreateGroupBookingRequest request) {
+        return inTransaction(() -> {
+            List<BookingDTO> result = new ArrayList<>(holds.size());
+            for (RoomHoldDTO hold : holds) {
+                if (intervalIndex.isBooked(hold.getRoomId(), request.getStartDate(), request.getEndDate())) {
+                    throw new ResponseStatusException(CONFLICT, "Room is already booked");
+                }
+                Booking saved = bookingRepository.save(Booking.builder()
+                        .user(user)
+                        .roomId(hold.getRoomId())
+                        .startDate(request.getStartDate())
+                        .endDate(request.getEndDate())
+                        .status(BookingStatus.CONFIRMED)
+                        .createdAt(LocalDateTime.now())
+                        .requestId(hold.getRequestId())
+                        .build());
+                intervalIndex.addAfterCommit(saved.getId(), saved.getRoomId(), saved.getStartDate(), saved.getEndDate());
+                releaseOutbox.enqueueCommit(saved.getRoomId(), saved.getRequestId(), saved.getStartDate(), saved.getEndDate());
+                result.add(toDTO(saved));
+            }
+            return result;
+        });
+    }
+
+    private <T> Mono<T> inTransaction(Supplier<T> work) {
+        return Mono.fromCallable(() -> transactionTemplate.execute(status -> work.get()))
+                .subscribeOn(jdbcScheduler);
     }
 
     @Transactional(readOnly = true)
     public Page<BookingDTO> getUserBookings(String username, Pageable pageable) {
-        return bookingRepository.findByUserUsername(username, pageable)
-                .map(this::toDTO);
+        return bookingRepository.findByUserUsername(username, pageable);
     }
 
     @Transactional(readOnly = true)
     public Page<BookingDTO> getAllBookings(Pageable pageable) {
-        return bookingRepository.findAll(pageable)
-                .map(this::toDTO);
+        return bookingRepository.findAllDTOs(pageable);
+    }
+
+    /**
+     * Страница истории пользователя по курсору, от новых к старым.
+     * userId берётся из подписанной шлюзом личности; без неё — поиск по username.
+     */
+    @Transactional(readOnly = true)
+    public BookingSliceDTO getUserBookingsSlice(String username, Long userId, String cursor, int size) {
+        Long id = userId != null ? userId : userRepository.findByUsername(username)
+                .map(User::getId)
+                .orElseThrow(() -> new ResponseStatusException(NOT_FOUND, "User not found"));
+        PageRequest page = PageRequest.of(0, size);
+        if (cursor == null) {
+            return toSliceDTO(bookingRepository.findLatestByUserId(id, page));
+        }
+        BookingCursor position = BookingCursor.decode(cursor);
+        return toSliceDTO(bookingRepository.findByUserIdBefore(id, position.createdAt(), position.id(), page));
+    }
+
+    @Transactional(readOnly = true)
+    public BookingSliceDTO getAllBookingsSlice(String cursor, int size) {
+        PageRequest page = PageRequest.of(0, size);
+        if (cursor == null) {
+            return toSliceDTO(bookingRepository.findLatest(page));
+        }
+        BookingCursor position = BookingCursor.decode(cursor);
+        return toSliceDTO(bookingRepository.findBefore(position.createdAt(), position.id(), page));
+    }
+
+    private static BookingSliceDTO toSliceDTO(Slice<BookingDTO> slice) {
+        List<BookingDTO> bookings = slice.getContent();
+        String nextCursor = slice.hasNext()
+                ? BookingCursor.of(bookings.get(bookings.size() - 1)).encode()
+                : null;
+        return new BookingSliceDTO(bookings, nextCursor);
     }
 
     public void cancelBooking(Long id, String username) {
@@ -135,15 +346,18 @@ public class BookingService {
         bookingRepository.save(booking);
 
         if (previousStatus == BookingStatus.CONFIRMED) {
-            try {
-                hotelServiceClient.releaseRoom(booking.getRoomId(), booking.getRequestId());
-            } catch (Exception ex) {
-                log.error("Error releasing room after cancellation: {}", ex.getMessage());
-            }
+            intervalIndex.removeAfterCommit(booking.getId(), booking.getRoomId());
+            releaseOutbox.enqueue(booking.getRoomId(), booking.getRequestId());
         }
     }
 
-    private BookingDTO toDTO(Booking b) {
+    // Комната (или автовыбор) и даты — то, что определяет результат брони
+    private static String fingerprint(CreateBookingRequest request) {
+        return (request.isAutoSelect() ? "auto" : String.valueOf(request.getRoomId()))
+                + "/" + request.getStartDate() + "/" + request.getEndDate();
+    }
+
+    private static BookingDTO toDTO(Booking b) {
         return BookingDTO.builder()
                 .id(b.getId())
                 .userId(b.getUser().getId())
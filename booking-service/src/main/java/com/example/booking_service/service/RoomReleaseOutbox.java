@@ -0,0 +1,189 @@
+package com.example.booking_service.service;
+
+import com.example.booking_service.client.HotelServiceClient;
+import com.example.booking_service.dto.RoomHoldDTO;
+import com.example.booking_service.dto.RoomReservationDTO;
+import com.example.booking_service.entity.OutboxCommand;
+import com.example.booking_service.entity.OutboxCommandType;
+import com.example.booking_service.repository.OutboxCommandRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Collectors;
+
+/**
+ * Transactional outbox для команд hotel-service: освобождение комнат и подтверждение броней.
+ * <p>
+ * Команда пишется в outbox_commands в транзакции вызывающего (подтверждение или отмена брони,
+ * компенсация), запрос пользователя не ждёт hotel-service. Фоновый обработчик забирает пачку
+ * короткой транзакцией: строки блокируются с SKIP LOCKED, а срок повтора сдвигается на
+ * {@code booking.outbox.claim-ms}, поэтому несколько экземпляров не отправляют одни и те же команды.
+ * Внутри пачки подряд идущие команды одного типа уходят одним вызовом release:batch или commit:batch.
+ * <p>
+ * При ошибке откладывается только неудавшийся вызов — с экспоненциальной паузой (с разбросом,
+ * не больше {@code booking.outbox.max-backoff-ms}); остальные команды пачки возвращаются в очередь
+ * без штрафа. Порядок записи между пачками и после отложенного вызова не гарантируется.
+ * Доставка — at-least-once: обе команды в hotel-service идемпотентны по requestId,
+ * а подтверждение после отмены игнорируется.
+ */
+@Component
+@Slf4j
+public class RoomReleaseOutbox {
+
+    private static final long BASE_BACKOFF_MILLIS = 1000L;
+    // Предел команд в одном вызове hotel-service
+    private static final int MAX_CALL_SIZE = 50;
+
+    private final OutboxCommandRepository outboxRepository;
+    private final HotelServiceClient hotelServiceClient;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final long claimMillis;
+    private final long maxBackoffMillis;
+
+    private final Counter deliveredCounter;
+    private final Counter failedCounter;
+
+    public RoomReleaseOutbox(OutboxCommandRepository outboxRepository,
+                             HotelServiceClient hotelServiceClient,
+                             TransactionTemplate transactionTemplate,
+                             MeterRegistry meterRegistry,
+                             @Value("${booking.outbox.batch-size:100}") int batchSize,
+                             @Value("${booking.outbox.claim-ms:60000}") long claimMillis,
+                             @Value("${booking.outbox.max-backoff-ms:300000}") long maxBackoffMillis) {
+        this.outboxRepository = outboxRepository;
+        this.hotelServiceClient = hotelServiceClient;
+        this.transactionTemplate = transactionTemplate;
+        this.batchSize = batchSize;
+        this.claimMillis = claimMillis;
+        this.maxBackoffMillis = maxBackoffMillis;
+        this.deliveredCounter = meterRegistry.counter("booking.outbox.delivered");
+        this.failedCounter = meterRegistry.counter("booking.outbox.failed");
+    }
+
+    // Только внутри транзакции вызывающего: команда фиксируется вместе с изменением брони
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void enqueue(Long roomId, String requestId) {
+        save(OutboxCommandType.RELEASE, roomId, requestId, null, null);
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void enqueueAll(List<RoomHoldDTO> holds) {
+        holds.forEach(hold -> enqueue(hold.getRoomId(), hold.getRequestId()));
+    }
+
+    // Бронь подтверждена: удержание в hotel-service становится постоянным
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void enqueueCommit(Long roomId, String requestId, LocalDate startDate, LocalDate endDate) {
+        save(OutboxCommandType.COMMIT, roomId, requestId, startDate, endDate);
+    }
+
+    private void save(OutboxCommandType type, Long roomId, String requestId, LocalDate startDate, LocalDate endDate) {
+        LocalDateTime now = LocalDateTime.now();
+        outboxRepository.save(OutboxCommand.builder()
+                .type(type)
+                .roomId(roomId)
+                .requestId(requestId)
+                .startDate(startDate)
+                .endDate(endDate)
+                .attempts(0)
+                .nextAttemptAt(now)
+                .createdAt(now)
+                .build());
+    }
+
+    @Scheduled(fixedDelayString = "${booking.outbox.poll-interval-ms:500}")
+    public void drain() {
+        List<OutboxCommand> batch;
+        while (!(batch = claimBatch()).isEmpty()) {
+            if (!deliver(batch)) {
+                return;
+            }
+            if (batch.size() < batchSize) {
+                return;
+            }
+        }
+    }
+
+    // Взятые команды не видны другим экземплярам до конца аренды; после падения экземпляра они снова в очереди
+    private List<OutboxCommand> claimBatch() {
+        return transactionTemplate.execute(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            List<OutboxCommand> batch = outboxRepository.findByNextAttemptAtLessThanEqualOrderByIdAsc(
+                    now, PageRequest.of(0, batchSize));
+            LocalDateTime claimedUntil = now.plusNanos(claimMillis * 1_000_000);
+            batch.forEach(command -> command.setNextAttemptAt(claimedUntil));
+            return outboxRepository.saveAll(batch);
+        });
+    }
+
+    // Команды уходят по порядку записи; на первой неудаче откладывается только этот вызов
+    private boolean deliver(List<OutboxCommand> batch) {
+        int from = 0;
+        while (from < batch.size()) {
+            OutboxCommandType type = batch.get(from).getType();
+            int to = from + 1;
+            while (to < batch.size() && to - from < MAX_CALL_SIZE && batch.get(to).getType() == type) {
+                to++;
+            }
+            List<OutboxCommand> run = batch.subList(from, to);
+            if (!Boolean.TRUE.equals(send(type, run).block())) {
+                postpone(run, batch.subList(to, batch.size()), type);
+                return false;
+            }
+            transactionTemplate.executeWithoutResult(status -> outboxRepository.deleteAllInBatch(run));
+            deliveredCounter.increment(run.size());
+            from = to;
+        }
+        return true;
+    }
+
+    private Mono<Boolean> send(OutboxCommandType type, List<OutboxCommand> run) {
+        if (type == OutboxCommandType.COMMIT) {
+            return hotelServiceClient.commitRoomsAsync(run.stream()
+                    .map(command -> new RoomReservationDTO(command.getRoomId(), command.getRequestId(),
+                            command.getStartDate(), command.getEndDate()))
+                    .collect(Collectors.toList()));
+        }
+        return hotelServiceClient.releaseRoomsAsync(run.stream()
+                .map(command -> new RoomHoldDTO(command.getRoomId(), command.getRequestId()))
+                .collect(Collectors.toList()));
+    }
+
+    // Неотправленный остаток пачки снова доступен сразу, попытки ему не засчитываются
+    private void postpone(List<OutboxCommand> failed, List<OutboxCommand> untried, OutboxCommandType type) {
+        LocalDateTime now = LocalDateTime.now();
+        for (OutboxCommand command : failed) {
+            command.setAttempts(command.getAttempts() + 1);
+            command.setNextAttemptAt(now.plusNanos(backoffMillis(command.getAttempts(), maxBackoffMillis) * 1_000_000));
+            command.setLastError(type == OutboxCommandType.COMMIT ? "commit:batch failed" : "release:batch failed");
+        }
+        untried.forEach(command -> command.setNextAttemptAt(now));
+        List<OutboxCommand> changed = new ArrayList<>(failed);
+        changed.addAll(untried);
+        transactionTemplate.executeWithoutResult(status -> outboxRepository.saveAll(changed));
+        failedCounter.increment(failed.size());
+        log.warn("Delivery of {} room commands failed, retrying later", failed.size());
+    }
+
+    // Экспоненциальный рост с потолком и случайным разбросом в пределах [delay/2, delay]
+    static long backoffMillis(int attempts, long maxBackoffMillis) {
+        long delay = BASE_BACKOFF_MILLIS << Math.min(attempts - 1, 20);
+        delay = Math.min(delay, maxBackoffMillis);
+        return delay / 2 + ThreadLocalRandom.current().nextLong(delay / 2 + 1);
+    }
+}
@@ -44,7 +44,7 @@ public class UserService {
         userRepository.save(user);
         log.info("User registered: {}", user.getUsername());
 
-        String token = jwtService.generateToken(user.getUsername(), user.getRole().name());
+        String token = jwtService.generateToken(user.getId(), user.getUsername(), user.getRole().name());
 
         return new AuthResponse(token, user.getUsername(), user.getRole().name());
     }
@@ -59,7 +59,7 @@ public class UserService {
 
         log.info("User authenticated: {}", user.getUsername());
 
-        String token = jwtService.generateToken(user.getUsername(), user.getRole().name());
+        String token = jwtService.generateToken(user.getId(), user.getUsername(), user.getRole().name());
 
         return new AuthResponse(token, user.getUsername(), user.getRole().name());
     }
@@ -0,0 +1,244 @@
+package com.example.booking_service;
+
+import com.example.booking_service.JWT.JwtService;
+import com.example.booking_service.entity.Booking;
+import com.example.booking_service.entity.BookingStatus;
+import com.example.booking_service.entity.Role;
+import com.example.booking_service.entity.User;
+import com.example.booking_service.repository.BookingRepository;
+import com.example.booking_service.repository.UserRepository;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Нагрузочный прогон саги бронирования: booking-service целиком (HTTP, безопасность, JPA, WebClient)
+ * против встроенной замены hotel-service с настраиваемыми задержкой и долей ошибок.
+ * <p>
+ * Пул клиентов шлёт POST /booking на небольшой набор комнат и дат, чтобы запросы конкурировали.
+ * В конце в лог выводятся пропускная способность, p50/p99/p999, распределение статусов,
+ * число двойных бронирований, компенсаций и удержаний, оставшихся без брони.
+ * <p>
+ * Запуск: mvn -pl booking-service test -Dtest=BookingLoadHarness -Dloadtest=true
+ * [-Dloadtest.clients=64 -Dloadtest.requests=5000 -Dloadtest.rooms=20
+ * -Dloadtest.latencyMs=20 -Dloadtest.errorRate=0.01 -Dloadtest.autoSelectRatio=0.5]
+ */
+@Tag("benchmark")
+@EnabledIfSystemProperty(named = "loadtest", matches = "true")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "eureka.client.enabled=false",
+        "hotel-service.url=http://hotel-service",
+        "jwt.secret=bG9hZC1oYXJuZXNzLXNlY3JldC1rZXktMzItYnl0ZXMtbG9uZyEh",
+        "jwt.expiration=3600000",
+        "gateway.identity.secret=bG9hZC1oYXJuZXNzLWdhdGV3YXktaWRlbnRpdHkta2V5LTMyYnl0ZXM=",
+        "spring.jpa.show-sql=false",
+        "logging.level.root=WARN",
+        "logging.level.com.example.booking_service.BookingLoadHarness=INFO"
+})
+class BookingLoadHarness {
+
+    private static final Logger log = LoggerFactory.getLogger(BookingLoadHarness.class);
+
+    private static final int CLIENTS = Integer.getInteger("loadtest.clients", 64);
+    private static final int REQUESTS = Integer.getInteger("loadtest.requests", 5_000);
+    private static final int ROOMS = Integer.getInteger("loadtest.rooms", 20);
+    private static final long LATENCY_MS = Long.getLong("loadtest.latencyMs", 20);
+    private static final double ERROR_RATE = Double.parseDouble(System.getProperty("loadtest.errorRate", "0.01"));
+    private static final double AUTO_SELECT_RATIO =
+            Double.parseDouble(System.getProperty("loadtest.autoSelectRatio", "0.5"));
+    // Окно дат заезда: чем уже, тем сильнее конкуренция за комнаты
+    private static final int DATE_WINDOW_DAYS = 14;
+
+    private static final HotelServiceStub HOTEL = startHotel();
+
+    @DynamicPropertySource
+    static void hotelService(DynamicPropertyRegistry registry) {
+        // hotel-service ищется через discovery: статический экземпляр вместо Eureka
+        registry.add("spring.cloud.discovery.client.simple.instances.hotel-service[0].uri",
+                () -> "http://localhost:" + HOTEL.port());
+    }
+
+    @AfterAll
+    static void stopHotel() {
+        HOTEL.close();
+    }
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private JwtService jwtService;
+
+    @Test
+    void bookingStorm() throws InterruptedException {
+        List<String> tokens = createUsers();
+        HttpClient http = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(5))
+                .executor(Executors.newFixedThreadPool(CLIENTS))
+                .build();
+
+        long[] latencies = new long[REQUESTS];
+        Map<Integer, LongAdder> statuses = new ConcurrentHashMap<>();
+        AtomicInteger next = new AtomicInteger();
+        LocalDateTime runStarted = LocalDateTime.now();
+
+        ExecutorService clients = Executors.newFixedThreadPool(CLIENTS);
+        long started = System.nanoTime();
+        for (int c = 0; c < CLIENTS; c++) {
+            String token = tokens.get(c);
+            clients.execute(() -> {
+                int i;
+                while ((i = next.getAndIncrement()) < REQUESTS) {
+                    long t0 = System.nanoTime();
+                    int status = book(http, token);
+                    latencies[i] = System.nanoTime() - t0;
+                    statuses.computeIfAbsent(status, s -> new LongAdder()).increment();
+                }
+            });
+        }
+        clients.shutdown();
+        clients.awaitTermination(30, TimeUnit.MINUTES);
+        long elapsedNanos = System.nanoTime() - started;
+
+        // Компенсации и освобождения уходят асинхронно — даём им завершиться
+        Thread.sleep(2_000);
+
+        List<Booking> bookings = bookingRepository.findAll().stream()
+                .filter(b -> b.getCreatedAt() != null && !b.getCreatedAt().isBefore(runStarted))
+                .collect(Collectors.toList());
+        List<Booking> confirmed = bookings.stream()
+                .filter(b -> b.getStatus() == BookingStatus.CONFIRMED)
+                .collect(Collectors.toList());
+        long compensated = bookings.stream().filter(b -> b.getStatus() == BookingStatus.CANCELLED).count();
+        long doubleBookings = countDoubleBookings(confirmed);
+        Set<String> confirmedRequests = confirmed.stream().map(Booking::getRequestId).collect(Collectors.toSet());
+        long orphanHolds = HOTEL.heldRequestIds().stream().filter(id -> !confirmedRequests.contains(id)).count();
+
+        Arrays.sort(latencies);
+        log.info("=== booking storm: {} clients, {} requests, {} rooms, hotel latency ~{} ms, errors {}% ===",
+                CLIENTS, REQUESTS, ROOMS, LATENCY_MS, String.format("%.1f", ERROR_RATE * 100));
+        log.info("throughput {} req/s ({} ms)",
+                String.format("%.1f", REQUESTS / (elapsedNanos / 1e9)), TimeUnit.NANOSECONDS.toMillis(elapsedNanos));
+        log.info("latency p50 {} ms", String.format("%.1f", percentile(latencies, 0.50)));
+        log.info("latency p99 {} ms", String.format("%.1f", percentile(latencies, 0.99)));
+        log.info("latency p999 {} ms", String.format("%.1f", percentile(latencies, 0.999)));
+        log.info("latency max {} ms", String.format("%.1f", latencies[latencies.length - 1] / 1e6));
+        log.info("statuses {}", new TreeMap<>(statuses));
+        log.info("confirmed {}", confirmed.size());
+        log.info("compensations {} (hotel releases {})", compensated, HOTEL.released.sum());
+        log.info("hotel confirmed {}, rejected {}, injected errors {}",
+                HOTEL.confirmed.sum(), HOTEL.rejected.sum(), HOTEL.injectedErrors.sum());
+        log.info("orphan holds {}", orphanHolds);
+        log.info("double bookings {}", doubleBookings);
+
+        assertEquals(0, doubleBookings, "Rooms were double-booked");
+    }
+
+    private int book(HttpClient http, String token) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        LocalDate start = LocalDate.now().plusDays(1 + random.nextInt(DATE_WINDOW_DAYS));
+        LocalDate end = start.plusDays(1 + random.nextInt(3));
+        boolean autoSelect = random.nextDouble() < AUTO_SELECT_RATIO;
+        String body = String.format("{\"roomId\":%s,\"startDate\":\"%s\",\"endDate\":\"%s\",\"autoSelect\":%s}",
+                autoSelect ? "null" : String.valueOf(1 + random.nextInt(ROOMS)), start, end, autoSelect);
+
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/booking"))
+                .timeout(Duration.ofSeconds(60))
+                .header("Authorization", "Bearer " + token)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+        try {
+            return http.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+        } catch (IOException e) {
+            return -1;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return -1;
+        }
+    }
+
+    // Пары подтверждённых броней одной комнаты с общими ночами [start, end)
+    private static long countDoubleBookings(List<Booking> confirmed) {
+        Map<Long, List<Booking>> byRoom = confirmed.stream().collect(Collectors.groupingBy(Booking::getRoomId));
+        long pairs = 0;
+        for (List<Booking> room : byRoom.values()) {
+            for (int i = 0; i < room.size(); i++) {
+                for (int j = i + 1; j < room.size(); j++) {
+                    Booking a = room.get(i);
+                    Booking b = room.get(j);
+                    if (a.getStartDate().isBefore(b.getEndDate()) && b.getStartDate().isBefore(a.getEndDate())) {
+                        pairs++;
+                    }
+                }
+            }
+        }
+        return pairs;
+    }
+
+    private List<String> createUsers() {
+        List<String> tokens = new ArrayList<>(CLIENTS);
+        for (int i = 0; i < CLIENTS; i++) {
+            User user = userRepository.save(User.builder()
+                    .username("load-" + i)
+                    .password("-")
+                    .role(Role.USER)
+                    .build());
+            tokens.add(jwtService.generateToken(user.getId(), user.getUsername(), user.getRole().name()));
+        }
+        return tokens;
+    }
+
+    private static double percentile(long[] sorted, double p) {
+        int index = (int) Math.min(sorted.length - 1, Math.ceil(p * sorted.length) - 1);
+        return sorted[Math.max(0, index)] / 1e6;
+    }
+
+    private static HotelServiceStub startHotel() {
+        try {
+            return new HotelServiceStub(ROOMS, LATENCY_MS, ERROR_RATE);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package com.example.booking_service;
+
+import com.example.booking_service.dto.BookingDTO;
+import com.example.booking_service.entity.Booking;
+import com.example.booking_service.entity.BookingStatus;
+import com.example.booking_service.entity.Role;
+import com.example.booking_service.entity.User;
+import com.example.booking_service.repository.BookingRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Чтение истории бронирований проекциями: по статистике Hibernate проверяем,
+ * что страница — это один SELECT (плюс COUNT для Page) и ни одной загруженной сущности.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class BookingProjectionQueriesTest {
+
+    private static final int BOOKINGS = 30;
+    private static final LocalDateTime BASE = LocalDateTime.of(2024, 1, 1, 12, 0);
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    private Statistics statistics;
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        user = entityManager.persist(User.builder()
+                .username("alice").password("secret").role(Role.USER).build());
+        User other = entityManager.persist(User.builder()
+                .username("bob").password("secret").role(Role.USER).build());
+        for (int i = 0; i < BOOKINGS; i++) {
+            entityManager.persist(Booking.builder()
+                    .user(i % 3 == 0 ? other : user)
+                    .roomId((long) (i % 5 + 1))
+                    .startDate(LocalDate.of(2024, 2, 1).plusDays(i))
+                    .endDate(LocalDate.of(2024, 2, 2).plusDays(i))
+                    .status(BookingStatus.CONFIRMED)
+                    .createdAt(BASE.plusMinutes(i))
+                    .requestId("req-" + i)
+                    .build());
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void userSlicesAreOneStatementPerPage() {
+        Slice<BookingDTO> first = bookingRepository.findLatestByUserId(user.getId(), PageRequest.of(0, 10));
+        BookingDTO last = first.getContent().get(first.getNumberOfElements() - 1);
+        Slice<BookingDTO> second = bookingRepository.findByUserIdBefore(
+                user.getId(), last.getCreatedAt(), last.getId(), PageRequest.of(0, 10));
+
+        assertTrue(first.hasNext());
+        assertEquals(10, second.getNumberOfElements());
+        assertFalse(second.hasNext());
+        assertTrue(second.getContent().stream().allMatch(b -> user.getId().equals(b.getUserId())));
+        assertTrue(second.getContent().get(0).getCreatedAt().isBefore(last.getCreatedAt()));
+        assertEquals(BookingStatus.CONFIRMED.name(), second.getContent().get(0).getStatus());
+
+        assertEquals(2, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getEntityLoadCount());
+    }
+
+    @Test
+    void adminSlicesWalkAllBookingsWithoutEntities() {
+        int seen = 0;
+        Slice<BookingDTO> slice = bookingRepository.findLatest(PageRequest.of(0, 7));
+        seen += slice.getNumberOfElements();
+        while (slice.hasNext()) {
+            BookingDTO last = slice.getContent().get(slice.getNumberOfElements() - 1);
+            slice = bookingRepository.findBefore(last.getCreatedAt(), last.getId(), PageRequest.of(0, 7));
+            seen += slice.getNumberOfElements();
+        }
+
+        assertEquals(BOOKINGS, seen);
+        assertEquals(5, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getEntityLoadCount());
+    }
+
+    @Test
+    void pagedListingsSelectOnlyDtoColumns() {
+        Page<BookingDTO> all = bookingRepository.findAllDTOs(PageRequest.of(1, 10, Sort.by("createdAt")));
+        assertEquals(10, all.getNumberOfElements());
+        assertEquals(BOOKINGS, all.getTotalElements());
+        assertEquals(BASE.plusMinutes(10), all.getContent().get(0).getCreatedAt());
+
+        Page<BookingDTO> mine = bookingRepository.findByUserUsername("alice", PageRequest.of(1, 5));
+        assertEquals(5, mine.getNumberOfElements());
+        assertEquals(20, mine.getTotalElements());
+
+        // Каждая страница — выборка и COUNT(*), без подгрузки Booking и User
+        assertEquals(4, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getEntityLoadCount());
+    }
+}
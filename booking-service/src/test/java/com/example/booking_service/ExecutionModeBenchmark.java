@@ -0,0 +1,179 @@
+package com.example.booking_service;
+
+import com.example.booking_service.JWT.JwtService;
+import com.example.booking_service.entity.Role;
+import com.example.booking_service.entity.User;
+import com.example.booking_service.repository.UserRepository;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledForJreRange;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.condition.JRE;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Сравнение режимов исполнения для POST /booking (createBookingAsync) при медленном hotel-service:
+ * booking-service целиком против {@link HotelServiceStub} с задержкой ~50 мс на вызов.
+ * Режим выбирается как в проде — VIRTUAL_THREADS; прогон запускается по разу на каждый режим,
+ * пропускная способность и p99 пишутся в лог.
+ * <p>
+ * Запуск: mvn -P java21 -pl booking-service test -Dtest=ExecutionModeBenchmark -Dbenchmark=true
+ * [-DVIRTUAL_THREADS=true]
+ */
+@Tag("benchmark")
+@EnabledForJreRange(min = JRE.JAVA_21)
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "eureka.client.enabled=false",
+        "hotel-service.url=http://hotel-service",
+        "jwt.secret=bG9hZC1oYXJuZXNzLXNlY3JldC1rZXktMzItYnl0ZXMtbG9uZyEh",
+        "jwt.expiration=3600000",
+        "gateway.identity.secret=bG9hZC1oYXJuZXNzLWdhdGV3YXktaWRlbnRpdHkta2V5LTMyYnl0ZXM=",
+        "spring.jpa.show-sql=false",
+        "logging.level.root=WARN",
+        "logging.level.com.example.booking_service.ExecutionModeBenchmark=INFO"
+})
+class ExecutionModeBenchmark {
+
+    private static final Logger log = LoggerFactory.getLogger(ExecutionModeBenchmark.class);
+
+    private static final int BOOKINGS = 5_000;
+    private static final int WARM_UP = 500;
+    // Больше, чем 200 потоков Tomcat по умолчанию
+    private static final int CLIENTS = 400;
+    private static final int ROOMS = 1_000;
+    private static final long HOTEL_LATENCY_MS = 50;
+
+    private static final HotelServiceStub HOTEL = startHotel();
+
+    @DynamicPropertySource
+    static void hotelService(DynamicPropertyRegistry registry) {
+        registry.add("spring.cloud.discovery.client.simple.instances.hotel-service[0].uri",
+                () -> "http://localhost:" + HOTEL.port());
+    }
+
+    @AfterAll
+    static void stopHotel() {
+        HOTEL.close();
+    }
+
+    @LocalServerPort
+    private int port;
+
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JwtService jwtService;
+
+    @Test
+    void bookingThroughput() throws InterruptedException {
+        User user = userRepository.save(User.builder().username("bench").password("-").role(Role.USER).build());
+        String token = jwtService.generateToken(user.getId(), user.getUsername(), user.getRole().name());
+        HttpClient http = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(5))
+                .executor(Executors.newFixedThreadPool(CLIENTS))
+                .build();
+
+        // Прогрев занимает первые ночи, замер — следующие: брони не пересекаются
+        run(http, token, 0, new long[WARM_UP]);
+        long[] latencies = new long[BOOKINGS];
+        Run run = run(http, token, WARM_UP, latencies);
+
+        Arrays.sort(latencies);
+        log.info("{}: {} bookings, {} clients, hotel latency ~{} ms: {} req/s, p50 {} ms, p99 {} ms, statuses {}",
+                virtualThreads ? "virtual-threads" : "thread-pool", BOOKINGS, CLIENTS, HOTEL_LATENCY_MS,
+                String.format("%.1f", BOOKINGS / (run.elapsedNanos() / 1e9)),
+                TimeUnit.NANOSECONDS.toMillis(latencies[latencies.length / 2]),
+                TimeUnit.NANOSECONDS.toMillis(latencies[(int) (latencies.length * 0.99)]),
+                new TreeMap<>(run.statuses()));
+
+        assertEquals(BOOKINGS, run.statuses().getOrDefault(201, new LongAdder()).sum(), "Not every booking was created");
+    }
+
+    // latencies.length броней начиная с номера first
+    private Run run(HttpClient http, String token, int first, long[] latencies) throws InterruptedException {
+        Map<Integer, LongAdder> statuses = new ConcurrentHashMap<>();
+        AtomicInteger next = new AtomicInteger();
+        ExecutorService clients = Executors.newFixedThreadPool(CLIENTS);
+        long started = System.nanoTime();
+        for (int c = 0; c < CLIENTS; c++) {
+            clients.execute(() -> {
+                int i;
+                while ((i = next.getAndIncrement()) < latencies.length) {
+                    long t0 = System.nanoTime();
+                    int status = book(http, token, first + i);
+                    latencies[i] = System.nanoTime() - t0;
+                    statuses.computeIfAbsent(status, s -> new LongAdder()).increment();
+                }
+            });
+        }
+        clients.shutdown();
+        clients.awaitTermination(30, TimeUnit.MINUTES);
+        return new Run(statuses, System.nanoTime() - started);
+    }
+
+    // Бронь n — комната n % ROOMS на одну ночь; между ночами одной комнаты свободный день,
+    // поэтому брони не конфликтуют при любом правиле границ
+    private int book(HttpClient http, String token, int n) {
+        LocalDate start = LocalDate.now().plusDays(1 + 2 * (n / ROOMS));
+        String body = String.format("{\"roomId\":%d,\"startDate\":\"%s\",\"endDate\":\"%s\",\"autoSelect\":false}",
+                1 + n % ROOMS, start, start.plusDays(1));
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/booking"))
+                .timeout(Duration.ofSeconds(60))
+                .header("Authorization", "Bearer " + token)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+        try {
+            return http.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+        } catch (IOException e) {
+            return -1;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return -1;
+        }
+    }
+
+    private static HotelServiceStub startHotel() {
+        try {
+            return new HotelServiceStub(ROOMS, HOTEL_LATENCY_MS, 0);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private record Run(Map<Integer, LongAdder> statuses, long elapsedNanos) {
+    }
+}
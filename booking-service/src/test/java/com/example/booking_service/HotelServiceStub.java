@@ -0,0 +1,238 @@
+package com.example.booking_service;
+
+import com.example.booking_service.dto.ConfirmAvailabilityRequest;
+import com.example.booking_service.dto.RoomDTO;
+import com.example.booking_service.dto.RoomHoldDTO;
+import com.example.booking_service.dto.RoomReservationDTO;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+/**
+ * Встроенная замена hotel-service для нагрузочных прогонов booking-service.
+ * <p>
+ * Реализует GET /api/rooms/{id}, GET /api/rooms/recommend, POST /api/rooms/{id}/confirm-availability,
+ * POST /api/rooms/{id}/release, POST /api/rooms/release:batch и POST /api/rooms/commit:batch. Удержания — ночи [start, end) по комнатам,
+ * как в настоящем сервисе. Задержка каждого ответа — экспоненциальная со средним latencyMillis
+ * (не больше 10 средних), доля errorRate ответов — 503.
+ */
+class HotelServiceStub implements AutoCloseable {
+
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+
+    private final int rooms;
+    private final long latencyMillis;
+    private final double errorRate;
+
+    // roomId → requestId → {startEpochDay, endEpochDay}
+    private final Map<Long, Map<String, long[]>> holds = new ConcurrentHashMap<>();
+
+    final LongAdder confirmed = new LongAdder();
+    final LongAdder rejected = new LongAdder();
+    final LongAdder released = new LongAdder();
+    final LongAdder committed = new LongAdder();
+    final LongAdder injectedErrors = new LongAdder();
+
+    HotelServiceStub(int rooms, long latencyMillis, double errorRate) throws IOException {
+        this.rooms = rooms;
+        this.latencyMillis = latencyMillis;
+        this.errorRate = errorRate;
+        for (long id = 1; id <= rooms; id++) {
+            holds.put(id, new HashMap<>());
+        }
+        this.server = HttpServer.create(new InetSocketAddress("localhost", 0), 1024);
+        server.createContext("/api/rooms", this::handle);
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    int port() {
+        return server.getAddress().getPort();
+    }
+
+    // requestId всех удержаний, которые сейчас числятся за комнатами
+    Set<String> heldRequestIds() {
+        return holds.values().stream()
+                .flatMap(room -> {
+                    synchronized (room) {
+                        return List.copyOf(room.keySet()).stream();
+                    }
+                })
+                .collect(Collectors.toSet());
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            simulateLatency();
+            if (ThreadLocalRandom.current().nextDouble() < errorRate) {
+                injectedErrors.increment();
+                exchange.sendResponseHeaders(503, -1);
+                return;
+            }
+
+            String method = exchange.getRequestMethod();
+            String[] path = exchange.getRequestURI().getPath().split("/");
+            // path: "", "api", "rooms", ...
+            if (method.equals("GET") && path.length == 4 && path[3].equals("recommend")) {
+                respond(exchange, recommend(queryParam(exchange, "limit"),
+                        queryParam(exchange, "from"), queryParam(exchange, "to")));
+            } else if (method.equals("GET") && path.length == 4) {
+                long roomId = Long.parseLong(path[3]);
+                if (!holds.containsKey(roomId)) {
+                    exchange.sendResponseHeaders(404, -1);
+                    return;
+                }
+                respond(exchange, room(roomId));
+            } else if (method.equals("POST") && path.length == 4 && path[3].equals("release:batch")) {
+                List<RoomHoldDTO> batch = objectMapper.readValue(exchange.getRequestBody(), new TypeReference<>() {
+                });
+                batch.forEach(hold -> release(hold.getRoomId(), hold.getRequestId()));
+                exchange.sendResponseHeaders(200, -1);
+            } else if (method.equals("POST") && path.length == 4 && path[3].equals("commit:batch")) {
+                // Подтверждённое удержание остаётся за комнатой, как и в настоящем сервисе
+                List<RoomReservationDTO> batch = objectMapper.readValue(exchange.getRequestBody(), new TypeReference<>() {
+                });
+                committed.add(batch.size());
+                exchange.sendResponseHeaders(200, -1);
+            } else if (method.equals("POST") && path.length == 5 && path[4].equals("confirm-availability")) {
+                ConfirmAvailabilityRequest request =
+                        objectMapper.readValue(exchange.getRequestBody(), ConfirmAvailabilityRequest.class);
+                respond(exchange, confirm(Long.parseLong(path[3]), request));
+            } else if (method.equals("POST") && path.length == 5 && path[4].equals("release")) {
+                release(Long.parseLong(path[3]), queryParam(exchange, "requestId"));
+                exchange.sendResponseHeaders(200, -1);
+            } else {
+                exchange.sendResponseHeaders(404, -1);
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private boolean confirm(Long roomId, ConfirmAvailabilityRequest request) {
+        Map<String, long[]> room = holds.get(roomId);
+        if (room == null) {
+            rejected.increment();
+            return false;
+        }
+        long start = request.getStartDate().toEpochDay();
+        long end = request.getEndDate().toEpochDay();
+        synchronized (room) {
+            if (room.containsKey(request.getRequestId())) {
+                return true;
+            }
+            for (long[] nights : room.values()) {
+                if (nights[0] < end && start < nights[1]) {
+                    rejected.increment();
+                    return false;
+                }
+            }
+            room.put(request.getRequestId(), new long[]{start, end});
+        }
+        confirmed.increment();
+        return true;
+    }
+
+    private void release(Long roomId, String requestId) {
+        Map<String, long[]> room = holds.get(roomId);
+        if (room == null || requestId == null) {
+            return;
+        }
+        synchronized (room) {
+            if (room.remove(requestId) != null) {
+                released.increment();
+            }
+        }
+    }
+
+    // Наименее занятые комнаты, свободные на [from, to), первыми — как в настоящем рейтинге
+    private List<RoomDTO> recommend(String limit, String from, String to) {
+        int count = limit == null ? rooms : Integer.parseInt(limit);
+        return LongStream.rangeClosed(1, rooms).boxed()
+                .filter(id -> from == null || isFree(id, LocalDate.parse(from).toEpochDay(), LocalDate.parse(to).toEpochDay()))
+                .sorted(Comparator.comparingInt((Long id) -> holdCount(id)).thenComparing(id -> id))
+                .limit(count)
+                .map(this::room)
+                .collect(Collectors.toList());
+    }
+
+    private boolean isFree(Long roomId, long start, long end) {
+        Map<String, long[]> room = holds.get(roomId);
+        synchronized (room) {
+            return room.values().stream().noneMatch(nights -> nights[0] < end && start < nights[1]);
+        }
+    }
+
+    private int holdCount(Long roomId) {
+        Map<String, long[]> room = holds.get(roomId);
+        synchronized (room) {
+            return room.size();
+        }
+    }
+
+    private RoomDTO room(Long roomId) {
+        return new RoomDTO(roomId, 1L, String.valueOf(100 + roomId), true, holdCount(roomId));
+    }
+
+    private void respond(HttpExchange exchange, Object body) throws IOException {
+        byte[] json = objectMapper.writeValueAsBytes(body);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, json.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(json);
+        }
+    }
+
+    private void simulateLatency() {
+        if (latencyMillis <= 0) {
+            return;
+        }
+        double sample = -latencyMillis * Math.log(1 - ThreadLocalRandom.current().nextDouble());
+        try {
+            Thread.sleep((long) Math.min(sample, latencyMillis * 10.0));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static String queryParam(HttpExchange exchange, String name) {
+        String query = exchange.getRequestURI().getQuery();
+        if (query == null) {
+            return null;
+        }
+        for (String pair : query.split("&")) {
+            int eq = pair.indexOf('=');
+            if (eq > 0 && pair.substring(0, eq).equals(name)) {
+                return pair.substring(eq + 1);
+            }
+        }
+        return null;
+    }
+}
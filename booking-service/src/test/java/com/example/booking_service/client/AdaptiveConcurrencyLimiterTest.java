@@ -0,0 +1,108 @@
+package com.example.booking_service.client;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Адаптивный лимит: допуск вызовов в пределах лимита, рост без очереди,
+ * снижение при росте задержки и срез на 10% при таймауте.
+ */
+class AdaptiveConcurrencyLimiterTest {
+
+    private static final long BASE_RTT = TimeUnit.MILLISECONDS.toNanos(10);
+
+    @Test
+    void admitsUpToLimit() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(3, 1, 100, 1000);
+
+        assertTrue(limiter.tryAcquire());
+        assertTrue(limiter.tryAcquire());
+        assertTrue(limiter.tryAcquire());
+        assertFalse(limiter.tryAcquire());
+        assertEquals(3, limiter.getInFlight());
+
+        limiter.releaseIgnored();
+        assertEquals(3, limiter.getLimit(), "Ignored call must not move the limit");
+        assertTrue(limiter.tryAcquire());
+    }
+
+    @Test
+    void initialLimitIsClamped() {
+        assertEquals(100, new AdaptiveConcurrencyLimiter(500, 1, 100, 1000).getLimit());
+        assertEquals(5, new AdaptiveConcurrencyLimiter(0, 5, 100, 1000).getLimit());
+    }
+
+    @Test
+    void growsWhileThereIsNoQueue() {
+        AdaptiveConcurrencyLimiter limiter = saturated(10);
+
+        limiter.release(BASE_RTT, false);
+
+        assertEquals(11, limiter.getLimit());
+    }
+
+    @Test
+    void underusedLimitDoesNotGrow() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(10, 1, 100, 1000);
+        limiter.tryAcquire();
+
+        limiter.release(BASE_RTT, false);
+
+        assertEquals(10, limiter.getLimit());
+    }
+
+    @Test
+    void shrinksWhenLatencyGrows() {
+        AdaptiveConcurrencyLimiter limiter = saturated(20);
+        limiter.release(BASE_RTT, false);
+        assertEquals(21, limiter.getLimit());
+
+        // Время ответа вдесятеро больше базового: очередь ~19 > 6·log10(limit)
+        limiter.release(BASE_RTT * 10, false);
+
+        assertEquals(19, limiter.getLimit());
+    }
+
+    @Test
+    void droppedCallCutsLimitDownToMinimum() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(10, 8, 100, 1000);
+
+        limiter.tryAcquire();
+        limiter.release(0, true);
+        assertEquals(9, limiter.getLimit());
+
+        limiter.tryAcquire();
+        limiter.release(0, true);
+        limiter.tryAcquire();
+        limiter.release(0, true);
+        assertEquals(8, limiter.getLimit());
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    @Test
+    void probeForgetsOldMinimumRtt() {
+        AdaptiveConcurrencyLimiter limiter = saturated(20, 2);
+        limiter.release(BASE_RTT, false);
+        assertEquals(21, limiter.getLimit());
+
+        // Второй замер сбрасывает rttNoLoad: новая базовая задержка не считается очередью
+        limiter.release(BASE_RTT * 10, false);
+
+        assertEquals(22, limiter.getLimit());
+    }
+
+    private static AdaptiveConcurrencyLimiter saturated(int limit) {
+        return saturated(limit, 1000);
+    }
+
+    private static AdaptiveConcurrencyLimiter saturated(int limit, int probeInterval) {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(limit, 1, 100, probeInterval);
+        for (int i = 0; i < limit; i++) {
+            assertTrue(limiter.tryAcquire());
+        }
+        return limiter;
+    }
+}
@@ -0,0 +1,129 @@
+package com.example.booking_service.client;
+
+import org.junit.jupiter.api.Test;
+
+import static com.example.booking_service.client.CircuitBreaker.Permission.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Переходы CLOSED → OPEN → HALF_OPEN: порог доли ошибок, скользящее окно, пробные вызовы.
+ * Окно — 4 вызова, порог — 50%, OPEN держится 50 мс, в HALF_OPEN — два пробных вызова.
+ */
+class CircuitBreakerTest {
+
+    private static final long OPEN_MILLIS = 50;
+
+    private final CircuitBreaker breaker = new CircuitBreaker("hotel", 4, 4, 50, OPEN_MILLIS, 2);
+
+    @Test
+    void staysClosedUntilMinCalls() {
+        failCalls(3);
+
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        assertEquals(CALL, breaker.tryAcquire());
+    }
+
+    @Test
+    void opensAtFailureRate() {
+        succeedCalls(2);
+        failCalls(1);
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+
+        failCalls(1);
+
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertEquals(DENIED, breaker.tryAcquire());
+    }
+
+    @Test
+    void oldOutcomesLeaveWindow() {
+        failCalls(1);
+        succeedCalls(4);
+        // Первая ошибка вытеснена: в окне S,S,S,F — 25%
+        failCalls(1);
+
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+    }
+
+    @Test
+    void halfOpenAfterOpenPeriodAdmitsLimitedProbes() throws InterruptedException {
+        open();
+        Thread.sleep(OPEN_MILLIS + 20);
+
+        assertEquals(PROBE, breaker.tryAcquire());
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+        assertEquals(PROBE, breaker.tryAcquire());
+        assertEquals(DENIED, breaker.tryAcquire());
+    }
+
+    @Test
+    void successfulProbesCloseWithCleanWindow() throws InterruptedException {
+        open();
+        Thread.sleep(OPEN_MILLIS + 20);
+
+        breaker.onSuccess(breaker.tryAcquire());
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+        breaker.onSuccess(breaker.tryAcquire());
+
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        // Ошибки до OPEN забыты: три новые ошибки не набирают minCalls
+        failCalls(3);
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+    }
+
+    @Test
+    void failedProbeReopens() throws InterruptedException {
+        open();
+        Thread.sleep(OPEN_MILLIS + 20);
+
+        breaker.onSuccess(breaker.tryAcquire());
+        breaker.onFailure(breaker.tryAcquire());
+
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertEquals(DENIED, breaker.tryAcquire());
+    }
+
+    @Test
+    void ignoredProbeReturnsSlot() throws InterruptedException {
+        open();
+        Thread.sleep(OPEN_MILLIS + 20);
+
+        assertEquals(PROBE, breaker.tryAcquire());
+        CircuitBreaker.Permission second = breaker.tryAcquire();
+        assertEquals(DENIED, breaker.tryAcquire());
+
+        breaker.onIgnored(second);
+
+        assertEquals(PROBE, breaker.tryAcquire());
+    }
+
+    @Test
+    void lateOutcomeOfOrdinaryCallIsIgnored() throws InterruptedException {
+        CircuitBreaker.Permission late = breaker.tryAcquire();
+        open();
+        Thread.sleep(OPEN_MILLIS + 20);
+        breaker.tryAcquire();
+
+        breaker.onSuccess(late);
+        breaker.onFailure(late);
+
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+    }
+
+    private void open() {
+        failCalls(4);
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+    }
+
+    private void succeedCalls(int calls) {
+        for (int i = 0; i < calls; i++) {
+            breaker.onSuccess(breaker.tryAcquire());
+        }
+    }
+
+    private void failCalls(int calls) {
+        for (int i = 0; i < calls; i++) {
+            breaker.onFailure(breaker.tryAcquire());
+        }
+    }
+}
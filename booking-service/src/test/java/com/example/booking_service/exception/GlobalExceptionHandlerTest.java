@@ -0,0 +1,45 @@
+package com.example.booking_service.exception;
+
+import com.example.booking_service.dto.ErrorResponse;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.server.ResponseStatusException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Статусы ответов на исключения сервиса: свои статусы есть только у отказа guard'а (503)
+ * и повтора ключа идемпотентности (422), остальные ResponseStatusException по-прежнему дают 400.
+ */
+class GlobalExceptionHandlerTest {
+
+    private final GlobalExceptionHandler handler = new GlobalExceptionHandler();
+
+    @Test
+    void idempotencyKeyMismatchIs422() {
+        ResponseEntity<ErrorResponse> response = handler.handleIdempotencyKeyMismatch(new IdempotencyKeyMismatchException());
+
+        assertEquals(HttpStatus.UNPROCESSABLE_ENTITY, response.getStatusCode());
+        assertEquals("Idempotency-Key was already used with different request parameters", response.getBody().getMessage());
+    }
+
+    @Test
+    void rejectedHotelServiceCallIs503WithRetryAfter() {
+        ResponseEntity<ErrorResponse> response = handler.handleHotelServiceUnavailable(
+                new HotelServiceUnavailableException("confirm", "circuit open"));
+
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, response.getStatusCode());
+        assertEquals("1", response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+        assertEquals("hotel-service unavailable: circuit open (confirm)", response.getBody().getMessage());
+    }
+
+    @Test
+    void otherResponseStatusExceptionsKeepBadRequest() {
+        ResponseEntity<ErrorResponse> response = handler.handleRuntimeException(
+                new ResponseStatusException(HttpStatus.CONFLICT, "Room not available"));
+
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+    }
+}
@@ -0,0 +1,96 @@
+package com.example.booking_service.service;
+
+import com.example.booking_service.dto.BookingDTO;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Склейка повторов по Idempotency-Key: общий результат саги в полёте, ответ из кеша после неё,
+ * 422 на тот же ключ с другими параметрами.
+ */
+class BookingIdempotencyCacheTest {
+
+    private static final String FINGERPRINT = "7/2030-01-01/2030-01-03";
+
+    private final BookingIdempotencyCache cache = new BookingIdempotencyCache(60_000, 100);
+    private final AtomicInteger sagas = new AtomicInteger();
+
+    @Test
+    void repeatsDuringSagaShareItsResult() {
+        Sinks.One<BookingDTO> saga = Sinks.one();
+        BookingDTO[] results = new BookingDTO[2];
+        cache.execute("u:1", FINGERPRINT, () -> counted(saga.asMono())).subscribe(b -> results[0] = b);
+        cache.execute("u:1", FINGERPRINT, () -> counted(saga.asMono())).subscribe(b -> results[1] = b);
+
+        saga.tryEmitValue(booking(1L));
+
+        assertEquals(1, sagas.get());
+        assertEquals(1L, results[0].getId());
+        assertSame(results[0], results[1]);
+    }
+
+    @Test
+    void completedResultIsServedWithoutSaga() {
+        cache.execute("u:1", FINGERPRINT, () -> counted(Mono.just(booking(1L)))).block();
+
+        BookingDTO repeated = cache.execute("u:1", FINGERPRINT, () -> counted(Mono.just(booking(2L)))).block();
+
+        assertEquals(1, sagas.get());
+        assertEquals(1L, repeated.getId());
+    }
+
+    @Test
+    void sameKeyWithOtherParametersIsRejected() {
+        cache.execute("u:1", FINGERPRINT, () -> counted(Mono.just(booking(1L)))).block();
+
+        ResponseStatusException e = assertThrows(ResponseStatusException.class,
+                () -> cache.execute("u:1", "8/2030-01-01/2030-01-03", () -> counted(Mono.just(booking(2L)))).block());
+
+        assertEquals(HttpStatus.UNPROCESSABLE_ENTITY, e.getStatusCode());
+        assertEquals(1, sagas.get());
+    }
+
+    @Test
+    void sameKeyWithOtherParametersIsRejectedDuringSaga() {
+        Sinks.One<BookingDTO> saga = Sinks.one();
+        cache.execute("u:1", FINGERPRINT, () -> counted(saga.asMono())).subscribe();
+
+        assertThrows(ResponseStatusException.class,
+                () -> cache.execute("u:1", "auto/2030-01-01/2030-01-03", () -> counted(Mono.just(booking(2L)))).block());
+        assertEquals(1, sagas.get());
+    }
+
+    @Test
+    void failedSagaIsNotRemembered() {
+        assertThrows(IllegalStateException.class, () -> cache.execute("u:1", FINGERPRINT,
+                () -> counted(Mono.<BookingDTO>error(new IllegalStateException("hotel down")))).block());
+
+        BookingDTO retried = cache.execute("u:1", FINGERPRINT, () -> counted(Mono.just(booking(1L)))).block();
+
+        assertEquals(2, sagas.get());
+        assertEquals(1L, retried.getId());
+    }
+
+    @Test
+    void recordWithoutFingerprintMatchesAnyRequest() {
+        assertTrue(BookingIdempotencyCache.sameRequest(null, FINGERPRINT));
+        assertTrue(BookingIdempotencyCache.sameRequest(FINGERPRINT, FINGERPRINT));
+        assertFalse(BookingIdempotencyCache.sameRequest(FINGERPRINT, "auto/2030-01-01/2030-01-03"));
+    }
+
+    private Mono<BookingDTO> counted(Mono<BookingDTO> saga) {
+        sagas.incrementAndGet();
+        return saga;
+    }
+
+    private static BookingDTO booking(Long id) {
+        return BookingDTO.builder().id(id).status("CONFIRMED").build();
+    }
+}
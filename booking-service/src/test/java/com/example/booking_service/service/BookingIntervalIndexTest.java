@@ -0,0 +1,100 @@
+package com.example.booking_service.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Поиск пересечений в индексе бронирований: полуинтервалы ночей [start, end), длинный интервал
+ * перед короткими (префиксный максимум), замена и удаление брони.
+ */
+class BookingIntervalIndexTest {
+
+    private static final LocalDate DAY = LocalDate.of(2030, 1, 1);
+
+    private final BookingIntervalIndex index = new BookingIntervalIndex(null);
+
+    @Test
+    void emptyRoomIsFree() {
+        assertFalse(index.isBooked(1L, DAY, DAY.plusDays(3)));
+    }
+
+    @Test
+    void backToBackStaysDoNotOverlap() {
+        index.add(1L, 1L, day(10), day(12));
+
+        // Заезд в день выезда и выезд в день заезда — свободно
+        assertFalse(index.isBooked(1L, day(12), day(14)));
+        assertFalse(index.isBooked(1L, day(8), day(10)));
+        assertTrue(index.isBooked(1L, day(11), day(14)));
+        assertTrue(index.isBooked(1L, day(8), day(11)));
+        assertTrue(index.isBooked(1L, day(10), day(12)));
+    }
+
+    @Test
+    void longStayBeforeShortOnesIsFound() {
+        index.add(1L, 1L, day(0), day(30));
+        index.add(2L, 1L, day(5), day(6));
+        index.add(3L, 1L, day(20), day(21));
+
+        // Последний интервал с заездом до запроса уже закончился, но первый ещё длится
+        assertTrue(index.isBooked(1L, day(25), day(26)));
+        assertFalse(index.isBooked(1L, day(30), day(40)));
+    }
+
+    @Test
+    void outOfOrderInsertsKeepSearchCorrect() {
+        index.add(3L, 1L, day(20), day(22));
+        index.add(1L, 1L, day(0), day(2));
+        index.add(2L, 1L, day(10), day(12));
+
+        assertTrue(index.isBooked(1L, day(11), day(12)));
+        assertFalse(index.isBooked(1L, day(2), day(10)));
+        assertFalse(index.isBooked(1L, day(12), day(20)));
+    }
+
+    @Test
+    void roomsAreIndependent() {
+        index.add(1L, 1L, day(0), day(5));
+
+        assertFalse(index.isBooked(2L, day(0), day(5)));
+    }
+
+    @Test
+    void removeFreesOnlyThatBooking() {
+        index.add(1L, 1L, day(0), day(5));
+        index.add(2L, 1L, day(10), day(15));
+
+        index.remove(1L, 1L);
+
+        assertFalse(index.isBooked(1L, day(0), day(5)));
+        assertTrue(index.isBooked(1L, day(10), day(15)));
+
+        index.remove(2L, 1L);
+        assertFalse(index.isBooked(1L, day(0), day(20)));
+    }
+
+    @Test
+    void addingSameBookingAgainMovesIt() {
+        index.add(1L, 1L, day(0), day(5));
+        index.add(1L, 1L, day(20), day(25));
+
+        assertFalse(index.isBooked(1L, day(0), day(5)));
+        assertTrue(index.isBooked(1L, day(21), day(22)));
+    }
+
+    @Test
+    void outsideTransactionChangesApplyImmediately() {
+        index.addAfterCommit(1L, 1L, day(0), day(5));
+        assertTrue(index.isBooked(1L, day(1), day(2)));
+
+        index.removeAfterCommit(1L, 1L);
+        assertFalse(index.isBooked(1L, day(1), day(2)));
+    }
+
+    private static LocalDate day(int offset) {
+        return DAY.plusDays(offset);
+    }
+}
@@ -0,0 +1,172 @@
+package com.example.booking_service.service;
+
+import com.example.booking_service.client.HotelServiceClient;
+import com.example.booking_service.dto.ConfirmAvailabilityRequest;
+import com.example.booking_service.dto.CreateBookingRequest;
+import com.example.booking_service.dto.RoomDTO;
+import com.example.booking_service.entity.Booking;
+import com.example.booking_service.entity.BookingStatus;
+import com.example.booking_service.entity.OutboxCommand;
+import com.example.booking_service.entity.OutboxCommandType;
+import com.example.booking_service.entity.Role;
+import com.example.booking_service.entity.User;
+import com.example.booking_service.repository.BookingRepository;
+import com.example.booking_service.repository.OutboxCommandRepository;
+import com.example.booking_service.repository.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Proxy;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static com.example.booking_service.entity.BookingStatus.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Сага одиночного бронирования после того, как hotel-service взял удержание:
+ * успешное сохранение ставит в outbox подтверждение, сбой сохранения — отмену брони и освобождение комнаты.
+ */
+class BookingServiceTest {
+
+    private static final Long ROOM_ID = 7L;
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final List<BookingStatus> savedStatuses = new ArrayList<>();
+    private final List<OutboxCommand> outbox = new ArrayList<>();
+
+    @Test
+    void confirmedBookingQueuesCommit() {
+        BookingService service = service(List.of());
+
+        service.createBookingAsync(request(), "alice").block();
+
+        assertEquals(List.of(PENDING, CONFIRMED), savedStatuses);
+        assertEquals(1, outbox.size());
+        assertEquals(OutboxCommandType.COMMIT, outbox.get(0).getType());
+        assertEquals(1.0, outcome("confirmed"));
+    }
+
+    @Test
+    void failedFinalSaveCancelsBookingAndReleasesHold() {
+        BookingService service = service(List.of(CONFIRMED));
+
+        IllegalStateException error = assertThrows(IllegalStateException.class,
+                () -> service.createBookingAsync(request(), "alice").block());
+
+        assertEquals("Connection lost", error.getMessage());
+        assertEquals(List.of(PENDING, CONFIRMED, CANCELLED), savedStatuses);
+        assertEquals(1, outbox.size());
+        assertEquals(OutboxCommandType.RELEASE, outbox.get(0).getType());
+        assertEquals(ROOM_ID, outbox.get(0).getRoomId());
+        assertEquals(1.0, outcome("compensated"));
+        assertEquals(0.0, outcome("confirmed"));
+    }
+
+    @Test
+    void failedCompensationKeepsOriginalError() {
+        // Отмена тоже не сохраняется: удержание снимется по истечении временной блокировки
+        BookingService service = service(List.of(CONFIRMED, CANCELLED));
+
+        IllegalStateException error = assertThrows(IllegalStateException.class,
+                () -> service.createBookingAsync(request(), "alice").block());
+
+        assertEquals("Connection lost", error.getMessage());
+        assertTrue(outbox.isEmpty());
+        assertEquals(1.0, outcome("compensation_failed"));
+    }
+
+    // Сохранение брони в одном из статусов failing падает
+    private BookingService service(List<BookingStatus> failing) {
+        BookingRepository bookingRepository = bookingRepository(failing);
+        User user = User.builder().id(1L).username("alice").role(Role.USER).build();
+        UserRepository userRepository = stub(UserRepository.class, (proxy, method, args) -> switch (method.getName()) {
+            case "findByUsername" -> Optional.of(user);
+            default -> throw new UnsupportedOperationException(method.getName());
+        });
+        OutboxCommandRepository outboxRepository = stub(OutboxCommandRepository.class, (proxy, method, args) -> switch (method.getName()) {
+            case "save" -> {
+                outbox.add((OutboxCommand) args[0]);
+                yield args[0];
+            }
+            default -> throw new UnsupportedOperationException(method.getName());
+        });
+        HotelServiceClient hotelServiceClient = new HotelServiceClient(WebClient.builder(), 60_000, 100, null, meterRegistry) {
+            @Override
+            public Mono<RoomDTO> fetchRoom(Long roomId) {
+                RoomDTO room = new RoomDTO();
+                room.setId(roomId);
+                return Mono.just(room);
+            }
+
+            @Override
+            public Mono<Boolean> confirmRoomAvailabilityAsync(Long roomId, ConfirmAvailabilityRequest req) {
+                return Mono.just(true);
+            }
+        };
+        TransactionTemplate transactionTemplate = new TransactionTemplate(new NoOpTransactionManager());
+        return new BookingService(bookingRepository, userRepository, hotelServiceClient,
+                new BookingIntervalIndex(bookingRepository), transactionTemplate, Schedulers.immediate(),
+                new BookingMetrics(meterRegistry),
+                new RoomReleaseOutbox(outboxRepository, hotelServiceClient, transactionTemplate, meterRegistry, 100, 60_000, 300_000),
+                null);
+    }
+
+    private BookingRepository bookingRepository(List<BookingStatus> failing) {
+        return stub(BookingRepository.class, (proxy, method, args) -> switch (method.getName()) {
+            case "save" -> {
+                Booking booking = (Booking) args[0];
+                savedStatuses.add(booking.getStatus());
+                if (failing.contains(booking.getStatus())) {
+                    throw new IllegalStateException("Connection lost");
+                }
+                if (booking.getId() == null) {
+                    booking.setId(100L);
+                }
+                yield booking;
+            }
+            default -> throw new UnsupportedOperationException(method.getName());
+        });
+    }
+
+    private double outcome(String outcome) {
+        return meterRegistry.get("booking.create.outcome").tag("outcome", outcome).counter().count();
+    }
+
+    private static CreateBookingRequest request() {
+        LocalDate start = LocalDate.now().plusDays(1);
+        return new CreateBookingRequest(ROOM_ID, start, start.plusDays(2), false);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T stub(Class<T> type, InvocationHandler handler) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, handler);
+    }
+
+    private static class NoOpTransactionManager implements PlatformTransactionManager {
+        @Override
+        public TransactionStatus getTransaction(TransactionDefinition definition) {
+            return new SimpleTransactionStatus();
+        }
+
+        @Override
+        public void commit(TransactionStatus status) {
+        }
+
+        @Override
+        public void rollback(TransactionStatus status) {
+        }
+    }
+}
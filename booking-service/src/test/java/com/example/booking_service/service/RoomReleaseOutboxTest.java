@@ -0,0 +1,200 @@
+package com.example.booking_service.service;
+
+import com.example.booking_service.client.HotelServiceClient;
+import com.example.booking_service.dto.RoomHoldDTO;
+import com.example.booking_service.dto.RoomReservationDTO;
+import com.example.booking_service.entity.OutboxCommand;
+import com.example.booking_service.entity.OutboxCommandType;
+import com.example.booking_service.repository.OutboxCommandRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+import java.lang.reflect.Proxy;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Predicate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Доставка outbox: неудача откладывает только свой вызов, взятая пачка не видна другому экземпляру.
+ * Пауза повторной доставки: удвоение от секунды, потолок и разброс в пределах [delay/2, delay].
+ * Разброс случайный, поэтому каждая попытка проверяется серией вызовов.
+ */
+class RoomReleaseOutboxTest {
+
+    private static final long MAX_BACKOFF = 300_000;
+    private static final int SAMPLES = 1_000;
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final TransactionTemplate transactionTemplate = new TransactionTemplate(new NoOpTransactionManager());
+    private final Map<Long, OutboxCommand> table = new TreeMap<>();
+    private final OutboxCommandRepository repository = repository();
+    private final List<String> sent = new ArrayList<>();
+
+    @Test
+    void failedCallIsPostponedAloneAndRestStaysDue() {
+        insert(1L, OutboxCommandType.RELEASE);
+        insert(2L, OutboxCommandType.COMMIT);
+        insert(3L, OutboxCommandType.RELEASE);
+        RoomReleaseOutbox outbox = outbox(type -> type != OutboxCommandType.COMMIT, null);
+
+        outbox.drain();
+
+        assertEquals(List.of("RELEASE 1", "COMMIT 2"), sent);
+        assertFalse(table.containsKey(1L));
+        OutboxCommand failed = table.get(2L);
+        assertEquals(1, failed.getAttempts());
+        assertTrue(failed.getNextAttemptAt().isAfter(LocalDateTime.now()));
+        assertEquals("commit:batch failed", failed.getLastError());
+        OutboxCommand untried = table.get(3L);
+        assertEquals(0, untried.getAttempts());
+        assertFalse(untried.getNextAttemptAt().isAfter(LocalDateTime.now()));
+        assertNull(untried.getLastError());
+    }
+
+    @Test
+    void claimedBatchIsSkippedByAnotherInstance() {
+        insert(1L, OutboxCommandType.RELEASE);
+        insert(2L, OutboxCommandType.RELEASE);
+        RoomReleaseOutbox other = outbox(type -> true, null);
+        // Второй экземпляр опрашивает outbox, пока первый ждёт ответа hotel-service
+        RoomReleaseOutbox outbox = outbox(type -> true, other);
+
+        outbox.drain();
+
+        assertEquals(List.of("RELEASE 1", "RELEASE 2"), sent);
+        assertTrue(table.isEmpty());
+    }
+
+    @Test
+    void firstRetryWaitsAboutASecond() {
+        assertBackoffWithin(1, 500, 1_000);
+    }
+
+    @Test
+    void delayDoublesWithEveryAttempt() {
+        assertBackoffWithin(2, 1_000, 2_000);
+        assertBackoffWithin(3, 2_000, 4_000);
+        assertBackoffWithin(6, 16_000, 32_000);
+    }
+
+    @Test
+    void delayIsCappedByMaxBackoff() {
+        // 1000 << 9 = 512 с уже больше потолка в 300 с
+        assertBackoffWithin(10, MAX_BACKOFF / 2, MAX_BACKOFF);
+        assertBackoffWithin(25, MAX_BACKOFF / 2, MAX_BACKOFF);
+    }
+
+    @Test
+    void manyAttemptsDoNotOverflow() {
+        assertBackoffWithin(Integer.MAX_VALUE, MAX_BACKOFF / 2, MAX_BACKOFF);
+    }
+
+    @Test
+    void jitterSpreadsRetries() {
+        long min = Long.MAX_VALUE;
+        long max = Long.MIN_VALUE;
+        for (int i = 0; i < SAMPLES; i++) {
+            long delay = RoomReleaseOutbox.backoffMillis(6, MAX_BACKOFF);
+            min = Math.min(min, delay);
+            max = Math.max(max, delay);
+        }
+        assertTrue(max - min > 8_000, "Retries of one attempt must not fire together");
+    }
+
+    private static void assertBackoffWithin(int attempts, long from, long to) {
+        for (int i = 0; i < SAMPLES; i++) {
+            long delay = RoomReleaseOutbox.backoffMillis(attempts, MAX_BACKOFF);
+            assertTrue(delay >= from && delay <= to,
+                    "attempt " + attempts + ": " + delay + " not in [" + from + ", " + to + "]");
+        }
+    }
+
+    private RoomReleaseOutbox outbox(Predicate<OutboxCommandType> delivers, RoomReleaseOutbox concurrent) {
+        HotelServiceClient client = new HotelServiceClient(WebClient.builder(), 60_000, 100, null, meterRegistry) {
+            @Override
+            public Mono<Boolean> releaseRoomsAsync(List<RoomHoldDTO> holds) {
+                holds.forEach(hold -> sent.add("RELEASE " + hold.getRoomId()));
+                return respond(OutboxCommandType.RELEASE);
+            }
+
+            @Override
+            public Mono<Boolean> commitRoomsAsync(List<RoomReservationDTO> reservations) {
+                reservations.forEach(reservation -> sent.add("COMMIT " + reservation.getRoomId()));
+                return respond(OutboxCommandType.COMMIT);
+            }
+
+            private Mono<Boolean> respond(OutboxCommandType type) {
+                if (concurrent != null) {
+                    concurrent.drain();
+                }
+                return Mono.just(delivers.test(type));
+            }
+        };
+        return new RoomReleaseOutbox(repository, client, transactionTemplate, meterRegistry, 100, 60_000, MAX_BACKOFF);
+    }
+
+    // Номер комнаты совпадает с id команды — по нему видно, какие команды ушли
+    private void insert(Long id, OutboxCommandType type) {
+        LocalDateTime now = LocalDateTime.now();
+        table.put(id, OutboxCommand.builder()
+                .id(id)
+                .type(type)
+                .roomId(id)
+                .requestId("request-" + id)
+                .attempts(0)
+                .nextAttemptAt(now)
+                .createdAt(now)
+                .build());
+    }
+
+    @SuppressWarnings("unchecked")
+    private OutboxCommandRepository repository() {
+        return (OutboxCommandRepository) Proxy.newProxyInstance(OutboxCommandRepository.class.getClassLoader(),
+                new Class<?>[]{OutboxCommandRepository.class}, (proxy, method, args) -> switch (method.getName()) {
+                    case "findByNextAttemptAtLessThanEqualOrderByIdAsc" -> table.values().stream()
+                            .filter(command -> !command.getNextAttemptAt().isAfter((LocalDateTime) args[0]))
+                            .toList();
+                    case "saveAll" -> {
+                        List<OutboxCommand> saved = new ArrayList<>();
+                        for (OutboxCommand command : (Iterable<OutboxCommand>) args[0]) {
+                            table.put(command.getId(), command);
+                            saved.add(command);
+                        }
+                        yield saved;
+                    }
+                    case "deleteAllInBatch" -> {
+                        ((Iterable<OutboxCommand>) args[0]).forEach(command -> table.remove(command.getId()));
+                        yield null;
+                    }
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+    }
+
+    private static class NoOpTransactionManager implements PlatformTransactionManager {
+        @Override
+        public TransactionStatus getTransaction(TransactionDefinition definition) {
+            return new SimpleTransactionStatus();
+        }
+
+        @Override
+        public void commit(TransactionStatus status) {
+        }
+
+        @Override
+        public void rollback(TransactionStatus status) {
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.example.hotel_service.JWT;
+
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.Base64;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Личность пользователя, проверенная api-gateway и переданная подписанными заголовками X-Auth-*.
+ * <p>
+ * Подпись — HMAC-SHA256 от {@code method \n path \n user \n role \n userId \n timestamp} общим ключом
+ * {@code gateway.identity.secret}: заголовки действительны только для того запроса, к которому выданы,
+ * и не старше {@code gateway.identity.max-skew-ms}. Ключ обязателен (base64, не короче 256 бит).
+ */
+@Component
+public class GatewayIdentity {
+    static final String USER_HEADER = "X-Auth-User";
+    static final String ROLE_HEADER = "X-Auth-Role";
+    static final String USER_ID_HEADER = "X-Auth-User-Id";
+    static final String TIMESTAMP_HEADER = "X-Auth-Timestamp";
+    static final String SIGNATURE_HEADER = "X-Auth-Signature";
+
+    private final SecretKey key;
+    private final long maxSkewMillis;
+
+    public GatewayIdentity(@Value("${gateway.identity.secret}") String secret,
+                           @Value("${gateway.identity.max-skew-ms:60000}") long maxSkewMillis) {
+        try {
+            this.key = Keys.hmacShaKeyFor(Decoders.BASE64.decode(secret));
+        } catch (RuntimeException e) {
+            throw new IllegalStateException("gateway.identity.secret must be a base64-encoded key of at least 256 bits", e);
+        }
+        this.maxSkewMillis = maxSkewMillis;
+    }
+
+    public Optional<Authentication> resolve(HttpServletRequest request) {
+        String signature = request.getHeader(SIGNATURE_HEADER);
+        if (signature == null) {
+            return Optional.empty();
+        }
+        String username = request.getHeader(USER_HEADER);
+        String role = request.getHeader(ROLE_HEADER);
+        String userId = Optional.ofNullable(request.getHeader(USER_ID_HEADER)).orElse("");
+        String timestamp = request.getHeader(TIMESTAMP_HEADER);
+        if (username == null || role == null || timestamp == null || !fresh(timestamp)) {
+            return Optional.empty();
+        }
+
+        byte[] expected = sign(String.join("\n",
+                request.getMethod(), request.getRequestURI(), username, role, userId, timestamp));
+        byte[] actual;
+        try {
+            actual = Base64.getDecoder().decode(signature);
+        } catch (IllegalArgumentException e) {
+            return Optional.empty();
+        }
+        if (!MessageDigest.isEqual(expected, actual)) {
+            return Optional.empty();
+        }
+
+        UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
+                username, null, List.of(new SimpleGrantedAuthority("ROLE_" + role)));
+        // userId из токена доступен сервисам без запроса к таблице пользователей
+        authentication.setDetails(userId.isEmpty() ? null : Long.valueOf(userId));
+        return Optional.of(authentication);
+    }
+
+    private boolean fresh(String timestamp) {
+        try {
+            return Math.abs(System.currentTimeMillis() - Long.parseLong(timestamp)) <= maxSkewMillis;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    private byte[] sign(String payload) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(key);
+            return mac.doFinal(payload.getBytes(StandardCharsets.UTF_8));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -1,13 +1,16 @@
 package com.example.hotel_service.JWT;
 
+import jakarta.servlet.DispatcherType;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpMethod;
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
+import org.springframework.security.web.util.matcher.RegexRequestMatcher;
 
 @Configuration
 @EnableWebSecurity
@@ -24,9 +27,16 @@ public class SecurityConfig {
         http
                 .csrf(csrf -> csrf.disable())
                 .authorizeHttpRequests(auth -> auth
+                        // Асинхронная дозапись потокового ответа — запрос уже авторизован на первом проходе
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
                         .requestMatchers("/h2-console/**", "/swagger-ui/**", "/v3/api-docs/**").permitAll()
+                        .requestMatchers("/actuator/health", "/actuator/prometheus").permitAll()
                         .requestMatchers("/api/hotels/**").hasAnyRole("USER", "ADMIN")
-                        .requestMatchers("/api/rooms/confirm-availability/**", "/api/rooms/release/**").permitAll() // Internal endpoints
+                        // Внутренние эндпоинты: только booking-service со служебной подписью X-Auth-*
+                        .requestMatchers("/api/rooms/*/confirm-availability", "/api/rooms/*/release",
+                                "/api/rooms/confirm-availability:batch", "/api/rooms/release:batch",
+                                "/api/rooms/commit:batch").hasRole("SERVICE")
+                        .requestMatchers(RegexRequestMatcher.regexMatcher(HttpMethod.GET, "/api/rooms/\\d+")).hasRole("SERVICE")
                         .anyRequest().authenticated()
                 )
                 .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
@@ -6,10 +6,14 @@ import com.example.hotel_service.service.HotelAnalyticsService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
 
 import java.time.LocalDate;
+import java.util.List;
 
 
 @Tag(name = "Hotel Analytics", description = "Analytics endpoints for hotel occupancy")
@@ -24,19 +28,37 @@ public class HotelController {
     }
 
     @GetMapping("/{id}/stats")
-    @Operation(summary = "Hotel stats", description = "Get per-room booking counts for given hotel")
+    @Operation(summary = "Hotel stats", description = "Get check-ins, room-nights and occupancy for nights [from, to) of given hotel")
     public ResponseEntity<HotelStatsDTO> getHotelStats(
             @PathVariable Long id,
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        validatePeriod(from, to);
         return ResponseEntity.ok(analyticsService.getHotelStats(id, from, to));
     }
 
+    @GetMapping("/stats")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "All hotels stats", description = "Get check-ins, room-nights and occupancy for nights [from, to) of every hotel")
+    public ResponseEntity<List<HotelStatsDTO>> getAllHotelStats(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        validatePeriod(from, to);
+        return ResponseEntity.ok(analyticsService.getAllHotelStats(from, to));
+    }
+
     @GetMapping("/stats/occupancy")
-    @Operation(summary = "Global occupancy", description = "Get overall occupancy percentage")
+    @Operation(summary = "Global occupancy", description = "Get overall occupancy percentage for nights [from, to)")
     public ResponseEntity<OccupancyDTO> getGlobalOccupancy(
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        validatePeriod(from, to);
         return ResponseEntity.ok(analyticsService.getGlobalOccupancy(from, to));
     }
+
+    private static void validatePeriod(LocalDate from, LocalDate to) {
+        if (!to.isAfter(from)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "'to' must be after 'from'");
+        }
+    }
 }
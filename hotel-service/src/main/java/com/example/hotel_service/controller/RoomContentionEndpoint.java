@@ -0,0 +1,27 @@
+package com.example.hotel_service.controller;
+
+import com.example.hotel_service.dto.RoomContentionDTO;
+import com.example.hotel_service.service.RoomContentionTracker;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+// GET /actuator/roomcontention?limit=20 — самые конфликтные комнаты
+@Component
+@Endpoint(id = "roomcontention")
+public class RoomContentionEndpoint {
+
+    private final RoomContentionTracker tracker;
+
+    public RoomContentionEndpoint(RoomContentionTracker tracker) {
+        this.tracker = tracker;
+    }
+
+    @ReadOperation
+    public List<RoomContentionDTO> hotRooms(@Nullable Integer limit) {
+        return tracker.top(limit == null ? 20 : limit);
+    }
+}
@@ -1,25 +1,47 @@
 package com.example.hotel_service.controller;
 
+import com.example.hotel_service.dto.BatchConfirmAvailabilityRequest;
+import com.example.hotel_service.dto.BatchConfirmAvailabilityResponse;
 import com.example.hotel_service.dto.ConfirmAvailabilityRequest;
 import com.example.hotel_service.dto.RoomDTO;
+import com.example.hotel_service.dto.RoomHoldDTO;
+import com.example.hotel_service.dto.RoomPageDTO;
+import com.example.hotel_service.dto.RoomReservationDTO;
 import com.example.hotel_service.service.RoomService;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
 import java.util.List;
 
 @RestController
 @RequestMapping("/api/rooms")
 @Tag(name = "Room Management")
 public class RoomController {
+    private static final String NDJSON = "application/x-ndjson";
+    private static final int MAX_PAGE_SIZE = 500;
+    private static final int STREAM_FLUSH_EVERY = 100;
+
     private final RoomService roomService;
+    private final ObjectMapper objectMapper;
 
-    public RoomController(RoomService roomService) {
+    public RoomController(RoomService roomService, ObjectMapper objectMapper) {
         this.roomService = roomService;
+        this.objectMapper = objectMapper;
     }
 
     @PostMapping
@@ -35,10 +57,77 @@ public class RoomController {
         return ResponseEntity.ok(roomService.getAvailableRooms());
     }
 
-    @GetMapping("/recommend")
+    // Keyset-пагинация: следующая страница запрашивается с after = nextAfter
+    @GetMapping("/page")
+    @PreAuthorize("hasAnyRole('USER', 'ADMIN')")
+    public ResponseEntity<RoomPageDTO> getAvailableRoomsPage(
+            @RequestParam(defaultValue = "0") long after,
+            @RequestParam(defaultValue = "100") int size) {
+        if (size <= 0 || size > MAX_PAGE_SIZE) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "'size' must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        return ResponseEntity.ok(roomService.getAvailableRoomsPage(after, size));
+    }
+
+    // Все доступные комнаты построчно (NDJSON): ответ пишется по мере чтения из БД
+    @GetMapping(value = "/stream", produces = NDJSON)
     @PreAuthorize("hasAnyRole('USER', 'ADMIN')")
-    public ResponseEntity<List<RoomDTO>> getRecommendedRooms() {
-        return ResponseEntity.ok(roomService.getRecommendedRooms());
+    public ResponseEntity<StreamingResponseBody> streamAvailableRooms() {
+        StreamingResponseBody body = out -> {
+            ObjectWriter writer = objectMapper.writerFor(RoomDTO.class)
+                    .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+            try (JsonGenerator lines = objectMapper.getFactory().createGenerator(out)) {
+                // Разделитель между корневыми значениями не нужен: каждая запись сама завершается '\n'
+                lines.setRootValueSeparator(null);
+                int[] written = new int[1];
+                roomService.forEachAvailableRoom(room -> {
+                    try {
+                        writer.writeValue(lines, room);
+                        lines.writeRaw('\n');
+                        if (++written[0] % STREAM_FLUSH_EVERY == 0) {
+                            lines.flush();
+                        }
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.parseMediaType(NDJSON)).body(body);
+    }
+
+    // Внутренний вызов booking-service при бронировании конкретной комнаты
+    @GetMapping("/{id:\\d+}")
+    @PreAuthorize("hasRole('SERVICE')")
+    public ResponseEntity<RoomDTO> getRoom(@PathVariable Long id) {
+        return ResponseEntity.ok(roomService.getRoom(id));
+    }
+
+    @GetMapping("/available")
+    @PreAuthorize("hasAnyRole('USER', 'ADMIN')")
+    public ResponseEntity<List<RoomDTO>> getAvailableRooms(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) Long hotelId) {
+        if (!to.isAfter(from)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "'to' must be after 'from'");
+        }
+        return ResponseEntity.ok(roomService.getAvailableRooms(from, to, hotelId));
+    }
+
+    @GetMapping("/recommend")
+    @PreAuthorize("hasAnyRole('USER', 'ADMIN', 'SERVICE')")
+    public ResponseEntity<List<RoomDTO>> getRecommendedRooms(
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        if (limit != null && limit <= 0) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "'limit' must be positive");
+        }
+        if ((from == null) != (to == null) || (from != null && !to.isAfter(from))) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "'from' and 'to' must be given together, 'to' after 'from'");
+        }
+        return ResponseEntity.ok(roomService.getRecommendedRooms(limit == null ? Integer.MAX_VALUE : limit, from, to));
     }
 
     @PostMapping("/{id}/confirm-availability")
@@ -49,6 +138,34 @@ public class RoomController {
         return ResponseEntity.ok(confirmed);
     }
 
+    // Групповое удержание: все комнаты удерживаются в одной транзакции либо ни одна
+    @PostMapping("/confirm-availability:batch")
+    public ResponseEntity<BatchConfirmAvailabilityResponse> confirmAvailabilityBatch(
+            @RequestBody @Valid BatchConfirmAvailabilityRequest request) {
+        return ResponseEntity.ok(roomService.confirmAvailabilityBatch(request));
+    }
+
+    // Брони подтверждены в booking-service: удержания больше не истекают
+    @PostMapping("/commit:batch")
+    public ResponseEntity<Void> commitReservations(@RequestBody List<RoomReservationDTO> reservations) {
+        if (reservations.size() > BatchConfirmAvailabilityRequest.MAX_ROOMS) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "At most " + BatchConfirmAvailabilityRequest.MAX_ROOMS + " reservations per batch");
+        }
+        roomService.commitReservations(reservations);
+        return ResponseEntity.ok().build();
+    }
+
+    @PostMapping("/release:batch")
+    public ResponseEntity<Void> releaseRooms(@RequestBody List<RoomHoldDTO> holds) {
+        if (holds.size() > BatchConfirmAvailabilityRequest.MAX_ROOMS) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "At most " + BatchConfirmAvailabilityRequest.MAX_ROOMS + " holds per batch");
+        }
+        roomService.releaseRooms(holds);
+        return ResponseEntity.ok().build();
+    }
+
     @PostMapping("/{id}/release")
     public ResponseEntity<Void> releaseRoom(
             @PathVariable Long id,
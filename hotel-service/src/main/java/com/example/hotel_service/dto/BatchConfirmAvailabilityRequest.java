@@ -0,0 +1,34 @@
+package com.example.hotel_service.dto;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchConfirmAvailabilityRequest {
+    // Предел комнат в одной группе: удержание и откат идут в одной транзакции
+    public static final int MAX_ROOMS = 50;
+
+    @NotBlank
+    private String requestId;
+    // Либо конкретные комнаты, либо roomCount комнат в отеле hotelId
+    @Size(max = MAX_ROOMS)
+    private List<Long> roomIds;
+    private Long hotelId;
+    @Positive @Max(MAX_ROOMS)
+    private Integer roomCount;
+    @NotNull
+    private LocalDate startDate;
+    @NotNull
+    private LocalDate endDate;
+}
@@ -0,0 +1,15 @@
+package com.example.hotel_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchConfirmAvailabilityResponse {
+    private boolean confirmed;
+    private List<RoomHoldDTO> holds;
+}
@@ -3,11 +3,15 @@ package com.example.hotel_service.dto;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 
-import java.util.Map;
+import java.time.LocalDate;
 
 @Data
 @AllArgsConstructor
 public class HotelStatsDTO {
     private Long hotelId;
-    private Map<Long, Long> roomBookingCounts;
+    private LocalDate from;
+    private LocalDate to;
+    private long checkIns;
+    private long roomNights;
+    private double occupancyPercent;
 }
@@ -11,5 +11,7 @@ import java.time.LocalDate;
 public class OccupancyDTO {
     private LocalDate from;
     private LocalDate to;
+    private long checkIns;
+    private long roomNights;
     private double occupancyPercent;
 }
@@ -0,0 +1,14 @@
+package com.example.hotel_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RoomContentionDTO {
+    private Long roomId;
+    // Отказы в удержании из-за чужого активного удержания
+    private long holdConflicts;
+}
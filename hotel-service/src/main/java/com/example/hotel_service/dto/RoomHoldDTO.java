@@ -0,0 +1,13 @@
+package com.example.hotel_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RoomHoldDTO {
+    private Long roomId;
+    private String requestId;
+}
@@ -0,0 +1,16 @@
+package com.example.hotel_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RoomPageDTO {
+    private List<RoomDTO> items;
+    // Курсор следующей страницы (id последней комнаты); null — страниц больше нет
+    private Long nextAfter;
+}
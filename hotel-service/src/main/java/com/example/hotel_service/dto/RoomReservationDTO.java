@@ -0,0 +1,18 @@
+package com.example.hotel_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+// Подтверждённая в booking-service бронь комнаты: requestId удержания и его даты
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RoomReservationDTO {
+    private Long roomId;
+    private String requestId;
+    private LocalDate startDate;
+    private LocalDate endDate;
+}
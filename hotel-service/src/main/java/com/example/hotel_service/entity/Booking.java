@@ -9,8 +9,9 @@ import lombok.NoArgsConstructor;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 
+// Журнал удержаний и броней комнат: по нему при старте восстанавливается индекс занятости
 @Entity
-@Table(name = "bookings")
+@Table(name = "bookings", indexes = @Index(name = "idx_bookings_request_id", columnList = "request_id"))
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -25,9 +26,13 @@ public class Booking {
     @JoinColumn(name = "room_id", nullable = false)
     private Room room;
 
-    @Column(name = "user_id", nullable = false)
+    // Пользователь известен только booking-service
+    @Column(name = "user_id")
     private Long userId;
 
+    @Column(name = "request_id")
+    private String requestId;
+
     @Column(name = "start_date", nullable = false)
     private LocalDate startDate;
 
@@ -35,7 +40,7 @@ public class Booking {
     private LocalDate endDate;
 
     @Column(nullable = false)
-    private String status; // CONFIRMED, CANCELLED, PENDING
+    private String status; // PENDING, CONFIRMED, CANCELLED, EXPIRED
 
     @Column(name = "created_at")
     private LocalDateTime createdAt;
@@ -2,10 +2,16 @@ package com.example.hotel_service.entity;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+
 import java.util.*;
 
 @Entity
 @Table(name = "hotels")
+// Отели после создания почти не меняются — достаточно инвалидации после коммита
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.NONSTRICT_READ_WRITE)
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
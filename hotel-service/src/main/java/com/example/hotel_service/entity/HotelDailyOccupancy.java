@@ -0,0 +1,36 @@
+package com.example.hotel_service.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+// Дневной срез занятости отеля: заезды и занятые номера за ночь stayDate → stayDate + 1
+@Entity
+@Table(name = "hotel_daily_occupancy",
+        uniqueConstraints = @UniqueConstraint(name = "uk_hotel_daily_occupancy_hotel_day",
+                columnNames = {"hotel_id", "stay_date"}))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class HotelDailyOccupancy {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "hotel_id", nullable = false)
+    private Long hotelId;
+
+    @Column(name = "stay_date", nullable = false)
+    private LocalDate stayDate;
+
+    @Column(name = "check_ins", nullable = false)
+    private long checkIns;
+
+    @Column(name = "room_nights", nullable = false)
+    private long roomNights;
+}
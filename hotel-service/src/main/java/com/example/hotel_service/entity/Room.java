@@ -5,12 +5,18 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 
 import java.time.LocalDateTime;
 
 @Entity
 @Table(name = "rooms")
+// Поля удержания меняются часто: READ_WRITE блокирует запись кэша на время транзакции
+// и обновляет её после коммита, поэтому findById не увидит устаревшую версию
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
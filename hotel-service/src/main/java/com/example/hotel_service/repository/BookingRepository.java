@@ -2,11 +2,14 @@ package com.example.hotel_service.repository;
 
 import com.example.hotel_service.entity.Booking;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -17,15 +20,25 @@ public interface BookingRepository extends JpaRepository<Booking, Long> {
     List<Long> findBookedRoomIds(@Param("startDate") LocalDate startDate,
                                  @Param("endDate") LocalDate endDate);
 
-    @Query("SELECT b.room.id, COUNT(b.id) FROM Booking b " +
-            "WHERE b.room.hotel.id = :hotelId " +
-            "AND b.startDate >= :from AND b.endDate <= :to " +
-            "GROUP BY b.room.id")
-    List<Object[]> countByHotelRooms(@Param("hotelId") Long hotelId,
-                                     @Param("from") LocalDate from,
-                                     @Param("to") LocalDate to);
-
-    @Query("SELECT COUNT(b.id) FROM Booking b " +
-            "WHERE b.status = 'CONFIRMED' AND b.startDate >= :from AND b.endDate <= :to")
-    long countConfirmedBetween(@Param("from") LocalDate from, @Param("to") LocalDate to);
+    // Действующие удержания и брони: roomId, requestId, startDate, endDate, status
+    @Query("SELECT b.room.id, b.requestId, b.startDate, b.endDate, b.status FROM Booking b " +
+            "WHERE b.status IN ('PENDING', 'CONFIRMED')")
+    List<Object[]> findActiveReservations();
+
+    boolean existsByRequestIdAndStatus(String requestId, String status);
+
+    // Переход состояния только из ожидаемых: повторы и гонки не перезаписывают чужой итог
+    @Transactional
+    @Modifying
+    @Query("UPDATE Booking b SET b.status = :status WHERE b.requestId = :requestId AND b.status IN :expected")
+    int updateStatus(@Param("requestId") String requestId,
+                     @Param("expected") Collection<String> expected,
+                     @Param("status") String status);
+
+    // Удержания, временная блокировка которых не дожила до старта (write-behind не успел или уже снята)
+    @Transactional
+    @Modifying
+    @Query("UPDATE Booking b SET b.status = 'EXPIRED' WHERE b.status = 'PENDING' AND NOT EXISTS " +
+            "(SELECT r.id FROM Room r WHERE r.id = b.room.id AND r.tempBlockRequestId = b.requestId)")
+    int expireOrphanedHolds();
 }
@@ -0,0 +1,37 @@
+package com.example.hotel_service.repository;
+
+import com.example.hotel_service.entity.HotelDailyOccupancy;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface HotelDailyOccupancyRepository extends JpaRepository<HotelDailyOccupancy, Long> {
+
+    interface Totals {
+        long getCheckIns();
+
+        long getRoomNights();
+    }
+
+    List<HotelDailyOccupancy> findByHotelIdAndStayDateBetween(Long hotelId, LocalDate from, LocalDate to);
+
+    @Modifying
+    @Query("DELETE FROM HotelDailyOccupancy o WHERE o.stayDate BETWEEN :from AND :to")
+    int deleteByStayDateBetween(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    // Суммы по ночам [from, to); по уникальному индексу (hotel_id, stay_date) читается не больше строки на день
+    @Query("SELECT COALESCE(SUM(o.checkIns), 0) AS checkIns, COALESCE(SUM(o.roomNights), 0) AS roomNights " +
+            "FROM HotelDailyOccupancy o " +
+            "WHERE o.hotelId = :hotelId AND o.stayDate >= :from AND o.stayDate < :to")
+    Totals sumByHotel(@Param("hotelId") Long hotelId, @Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    @Query("SELECT COALESCE(SUM(o.checkIns), 0) AS checkIns, COALESCE(SUM(o.roomNights), 0) AS roomNights " +
+            "FROM HotelDailyOccupancy o WHERE o.stayDate >= :from AND o.stayDate < :to")
+    Totals sumAll(@Param("from") LocalDate from, @Param("to") LocalDate to);
+}
@@ -1,9 +1,20 @@
 package com.example.hotel_service.repository;
 
 import com.example.hotel_service.entity.Hotel;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+
 @Repository
 public interface HotelRepository extends JpaRepository<Hotel, Long> {
+
+    // Кэш запроса хранит id, сами отели берутся из региона Hotel;
+    // вставка в hotels (createHotel) сбрасывает результат через метки обновления таблиц
+    @Override
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+    List<Hotel> findAll();
 }
\ No newline at end of file
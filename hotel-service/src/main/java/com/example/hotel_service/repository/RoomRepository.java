@@ -1,16 +1,36 @@
 package com.example.hotel_service.repository;
 
 import com.example.hotel_service.entity.Room;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
 public interface RoomRepository extends JpaRepository<Room, Long> {
-    List<Room> findByAvailableTrue();
+    // Истёкшие блокировки очищаются RoomHoldManager, поэтому достаточно проверки на NULL
+    @Query("SELECT r FROM Room r WHERE r.available = true AND r.tempBlockRequestId IS NULL")
+    List<Room> findAvailableUnblocked();
 
-    @Query("SELECT r FROM Room r WHERE r.available = true ORDER BY r.timesBooked ASC, r.id ASC")
-    List<Room> findAvailableRoomsOrderedByTimesBooked();
+    // Keyset-пагинация по id: страница начинается сразу после курсора, без OFFSET
+    @Query("SELECT r FROM Room r WHERE r.available = true AND r.tempBlockRequestId IS NULL AND r.id > :after " +
+            "ORDER BY r.id ASC")
+    List<Room> findAvailableUnblockedAfter(@Param("after") long after, Pageable pageable);
+
+    // Потоковое чтение курсором JDBC; вызывать внутри транзакции и закрывать Stream
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT r FROM Room r WHERE r.available = true AND r.tempBlockRequestId IS NULL ORDER BY r.id ASC")
+    Stream<Room> streamAvailableUnblocked();
+
+    List<Room> findByTempBlockRequestIdIsNotNull();
 }
\ No newline at end of file
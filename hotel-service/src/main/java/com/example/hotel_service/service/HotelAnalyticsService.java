@@ -2,37 +2,63 @@ package com.example.hotel_service.service;
 
 import com.example.hotel_service.dto.HotelStatsDTO;
 import com.example.hotel_service.dto.OccupancyDTO;
-import com.example.hotel_service.repository.BookingRepository;
-import com.example.hotel_service.repository.RoomRepository;
+import com.example.hotel_service.repository.HotelDailyOccupancyRepository;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
-import java.util.Map;
+import java.time.temporal.ChronoUnit;
+import java.util.Comparator;
+import java.util.List;
 import java.util.stream.Collectors;
 
+/**
+ * Аналитика по дневным срезам {@link HotelOccupancyRollup}: период [from, to) читается
+ * не больше чем одной строкой на день и отель, независимо от объёма истории бронирований.
+ * Сводка сразу по всем отелям считается в памяти по кубу занятости {@link RoomOccupancyIndex}.
+ * Чтобы оба источника отвечали одинаково, период должен лежать внутри окна календаря индекса — иначе 400.
+ */
 @Service
 @Transactional(readOnly = true)
 public class HotelAnalyticsService {
 
-    private final BookingRepository bookingRepo;
-    private final RoomRepository roomRepo;
+    private final HotelDailyOccupancyRepository rollupRepository;
+    private final RoomOccupancyIndex occupancyIndex;
 
-    public HotelAnalyticsService(BookingRepository bookingRepo, RoomRepository roomRepo) {
-        this.bookingRepo = bookingRepo;
-        this.roomRepo = roomRepo;
+    public HotelAnalyticsService(HotelDailyOccupancyRepository rollupRepository, RoomOccupancyIndex occupancyIndex) {
+        this.rollupRepository = rollupRepository;
+        this.occupancyIndex = occupancyIndex;
     }
 
     public HotelStatsDTO getHotelStats(Long hotelId, LocalDate from, LocalDate to) {
-        Map<Long, Long> counts = bookingRepo.countByHotelRooms(hotelId, from, to)
-                .stream().collect(Collectors.toMap(m -> (Long)m[0], m -> (Long)m[1]));
-        return new HotelStatsDTO(hotelId, counts);
+        occupancyIndex.checkPeriod(from, to);
+        HotelDailyOccupancyRepository.Totals totals = rollupRepository.sumByHotel(hotelId, from, to);
+        double percent = occupancyPercent(totals.getRoomNights(), occupancyIndex.roomCount(hotelId), from, to);
+        return new HotelStatsDTO(hotelId, from, to, totals.getCheckIns(), totals.getRoomNights(), percent);
     }
 
     public OccupancyDTO getGlobalOccupancy(LocalDate from, LocalDate to) {
-        long totalRooms = roomRepo.count();
-        long booked = bookingRepo.countConfirmedBetween(from, to);
-        double percent = totalRooms == 0 ? 0.0 : (booked * 100.0 / totalRooms);
-        return new OccupancyDTO(from, to, percent);
+        occupancyIndex.checkPeriod(from, to);
+        HotelDailyOccupancyRepository.Totals totals = rollupRepository.sumAll(from, to);
+        double percent = occupancyPercent(totals.getRoomNights(), occupancyIndex.roomCount(null), from, to);
+        return new OccupancyDTO(from, to, totals.getCheckIns(), totals.getRoomNights(), percent);
+    }
+
+    // Куб занятости хранится в памяти, транзакция не нужна
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public List<HotelStatsDTO> getAllHotelStats(LocalDate from, LocalDate to) {
+        occupancyIndex.checkPeriod(from, to);
+        return occupancyIndex.aggregateByHotel(from, to).stream()
+                .sorted(Comparator.comparing(RoomOccupancyIndex.HotelOccupancy::hotelId))
+                .map(h -> new HotelStatsDTO(h.hotelId(), from, to, h.checkIns(), h.roomNights(),
+                        occupancyPercent(h.roomNights(), h.rooms(), from, to)))
+                .collect(Collectors.toList());
+    }
+
+    // Доля занятых номеро-ночей от всех номеро-ночей периода
+    private static double occupancyPercent(long roomNights, int rooms, LocalDate from, LocalDate to) {
+        long capacity = rooms * ChronoUnit.DAYS.between(from, to);
+        return capacity <= 0 ? 0.0 : roomNights * 100.0 / capacity;
     }
 }
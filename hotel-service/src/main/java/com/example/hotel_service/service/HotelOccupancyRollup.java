@@ -0,0 +1,163 @@
+package com.example.hotel_service.service;
+
+import com.example.hotel_service.entity.HotelDailyOccupancy;
+import com.example.hotel_service.repository.HotelDailyOccupancyRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Дневные срезы занятости по отелям (таблица hotel_daily_occupancy).
+ * <p>
+ * Изменения занятости из {@link RoomOccupancyIndex} раскладываются по дням и копятся
+ * в памяти: дельты одного (отель, день) схлопываются и сбрасываются пачкой раз в
+ * {@code hotels.rollup.flush-interval-ms}. Аналитика видит их с этой задержкой.
+ * <p>
+ * При старте срезы внутри окна календаря индекса пересчитываются по его снимку — действующим
+ * удержаниям и броням из журнала hotel-service. Дальше их поддерживают только дельты.
+ */
+@Component
+@Slf4j
+public class HotelOccupancyRollup {
+
+    private final Map<DayKey, Delta> pending = new ConcurrentHashMap<>();
+    // Сброс и пересборка не пересекаются
+    private final Object flushLock = new Object();
+
+    private final HotelDailyOccupancyRepository rollupRepository;
+    private final RoomOccupancyIndex occupancyIndex;
+    private final TransactionTemplate transactionTemplate;
+
+    public HotelOccupancyRollup(HotelDailyOccupancyRepository rollupRepository,
+                                RoomOccupancyIndex occupancyIndex,
+                                TransactionTemplate transactionTemplate) {
+        this.rollupRepository = rollupRepository;
+        this.occupancyIndex = occupancyIndex;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    @EventListener
+    public void onOccupancyChange(RoomOccupancyIndex.OccupancyChange change) {
+        accumulate(pending, change);
+    }
+
+    @Scheduled(fixedDelayString = "${hotels.rollup.flush-interval-ms:1000}")
+    public void flush() {
+        synchronized (flushLock) {
+            if (pending.isEmpty()) {
+                return;
+            }
+            Map<DayKey, Delta> batch = new HashMap<>();
+            for (DayKey key : new ArrayList<>(pending.keySet())) {
+                Delta delta = pending.remove(key);
+                if (delta != null) {
+                    batch.put(key, delta);
+                }
+            }
+            try {
+                transactionTemplate.executeWithoutResult(status -> apply(batch));
+            } catch (RuntimeException e) {
+                // Дельты аддитивны — возвращаем их в очередь к более свежим
+                log.error("Failed to persist {} occupancy rollup rows: {}", batch.size(), e.getMessage());
+                batch.forEach((key, delta) -> pending.merge(key, delta, Delta::plus));
+            }
+        }
+    }
+
+    // Читает существующие строки одним запросом на отель и прибавляет к ним дельты
+    private void apply(Map<DayKey, Delta> batch) {
+        Map<Long, List<Map.Entry<DayKey, Delta>>> byHotel = batch.entrySet().stream()
+                .collect(Collectors.groupingBy(e -> e.getKey().hotelId()));
+        List<HotelDailyOccupancy> created = new ArrayList<>();
+        byHotel.forEach((hotelId, entries) -> {
+            LocalDate min = entries.stream().map(e -> e.getKey().day()).min(LocalDate::compareTo).orElseThrow();
+            LocalDate max = entries.stream().map(e -> e.getKey().day()).max(LocalDate::compareTo).orElseThrow();
+            Map<LocalDate, HotelDailyOccupancy> rows = rollupRepository.findByHotelIdAndStayDateBetween(hotelId, min, max)
+                    .stream().collect(Collectors.toMap(HotelDailyOccupancy::getStayDate, Function.identity()));
+            for (Map.Entry<DayKey, Delta> entry : entries) {
+                HotelDailyOccupancy row = rows.get(entry.getKey().day());
+                if (row == null) {
+                    row = HotelDailyOccupancy.builder().hotelId(hotelId).stayDate(entry.getKey().day()).build();
+                    created.add(row);
+                }
+                row.setCheckIns(Math.max(0, row.getCheckIns() + entry.getValue().checkIns()));
+                row.setRoomNights(Math.max(0, row.getRoomNights() + entry.getValue().roomNights()));
+            }
+        });
+        rollupRepository.saveAll(created);
+    }
+
+    /**
+     * Пересчитывает срезы внутри окна индекса; срезы старше окна индекс уже не покрывает, они не трогаются.
+     * Снимок удержаний берётся вместе с очисткой очереди в том же окне, поэтому изменения,
+     * пришедшие во время пересборки, лягут поверх неё следующим сбросом.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Order // после загрузки индекса занятости
+    public void rebuild() {
+        LocalDate first = occupancyIndex.firstDay();
+        LocalDate last = occupancyIndex.lastDay();
+        synchronized (flushLock) {
+            Map<DayKey, Delta> totals = new HashMap<>();
+            occupancyIndex.snapshotHolds(holds -> {
+                pending.keySet().removeIf(key -> !key.day().isBefore(first) && !key.day().isAfter(last));
+                holds.forEach(change -> accumulate(totals, change, first, last));
+            });
+            List<HotelDailyOccupancy> rows = totals.entrySet().stream()
+                    .map(e -> HotelDailyOccupancy.builder()
+                            .hotelId(e.getKey().hotelId())
+                            .stayDate(e.getKey().day())
+                            .checkIns(e.getValue().checkIns())
+                            .roomNights(e.getValue().roomNights())
+                            .build())
+                    .collect(Collectors.toList());
+            transactionTemplate.executeWithoutResult(status -> {
+                rollupRepository.deleteByStayDateBetween(first, last);
+                rollupRepository.saveAll(rows);
+            });
+            log.info("Occupancy rollup rebuilt for {} - {}: {} hotel-days", first, last, rows.size());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    private static void accumulate(Map<DayKey, Delta> target, RoomOccupancyIndex.OccupancyChange change) {
+        accumulate(target, change, change.from(), change.to());
+    }
+
+    // Заезд относится к первому дню, номер-ночь — к каждой ночи [from, to); учитываются только дни [first, last]
+    private static void accumulate(Map<DayKey, Delta> target, RoomOccupancyIndex.OccupancyChange change,
+                                   LocalDate first, LocalDate last) {
+        LocalDate start = change.from().isBefore(first) ? first : change.from();
+        for (LocalDate day = start; day.isBefore(change.to()) && !day.isAfter(last); day = day.plusDays(1)) {
+            long checkIns = day.equals(change.from()) ? change.delta() : 0;
+            target.merge(new DayKey(change.hotelId(), day), new Delta(checkIns, change.delta()), Delta::plus);
+        }
+    }
+
+    private record DayKey(Long hotelId, LocalDate day) {
+    }
+
+    private record Delta(long checkIns, long roomNights) {
+        Delta plus(Delta other) {
+            return new Delta(checkIns + other.checkIns, roomNights + other.roomNights);
+        }
+    }
+}
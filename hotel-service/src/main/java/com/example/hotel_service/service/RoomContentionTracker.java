@@ -0,0 +1,55 @@
+package com.example.hotel_service.service;
+
+import com.example.hotel_service.dto.RoomContentionDTO;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * Статистика конкуренции за комнаты: по каждой комнате — отказы в удержании из-за чужого
+ * активного удержания. Горячие комнаты отдаются через actuator-эндпоинт roomcontention,
+ * суммарное значение — через метрику.
+ */
+@Component
+public class RoomContentionTracker {
+
+    private final Map<Long, RoomContention> rooms = new ConcurrentHashMap<>();
+    private final Counter holdConflicts;
+
+    public RoomContentionTracker(MeterRegistry meterRegistry) {
+        this.holdConflicts = meterRegistry.counter("rooms.holds.conflicts");
+    }
+
+    public void recordHoldConflict(Long roomId) {
+        room(roomId).holdConflicts.increment();
+        holdConflicts.increment();
+    }
+
+    // Самые конфликтные комнаты
+    public List<RoomContentionDTO> top(int limit) {
+        return rooms.entrySet().stream()
+                .map(e -> e.getValue().toDTO(e.getKey()))
+                .sorted(Comparator.comparingLong(RoomContentionDTO::getHoldConflicts).reversed())
+                .limit(limit)
+                .collect(Collectors.toList());
+    }
+
+    private RoomContention room(Long roomId) {
+        return rooms.computeIfAbsent(roomId, id -> new RoomContention());
+    }
+
+    private static final class RoomContention {
+        private final LongAdder holdConflicts = new LongAdder();
+
+        private RoomContentionDTO toDTO(Long roomId) {
+            return new RoomContentionDTO(roomId, holdConflicts.sum());
+        }
+    }
+}
@@ -0,0 +1,290 @@
+package com.example.hotel_service.service;
+
+import com.example.hotel_service.entity.Room;
+import com.example.hotel_service.repository.RoomRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Временные удержания комнат в памяти.
+ * <p>
+ * Таблица roomId → (владелец, срок) на ConcurrentHashMap: compute блокирует только корзину
+ * одной комнаты, поэтому захват и снятие — атомарные compare-and-set без блокировок на уровне БД.
+ * В таблицу rooms состояние пишется асинхронно (write-behind): изменения одной комнаты
+ * схлопываются и сбрасываются пачкой раз в {@code rooms.holds.flush-interval-ms}.
+ * <p>
+ * Истёкшие удержания снимаются заранее колесом таймеров (тик — секунда) и очищаются
+ * в таблице той же пачкой, поэтому запросы на чтение фильтруют блокировки прямо в SQL.
+ * Истечение неподтверждённого удержания освобождает и его даты в {@link RoomOccupancyIndex} —
+ * и по колесу, и когда истёкшее удержание перехватывает другой запрос раньше тика;
+ * подтверждённое ({@link #commit}) снимает блокировку сразу, даты остаются занятыми.
+ * <p>
+ * Пачка пишется одним JDBC-batch атомарных UPDATE с дельтой timesBooked: строка не читается,
+ * поэтому параллельные записи не теряются и версия строки не нужна — владельца удержания
+ * сериализует таблица в памяти. Не записанная пачка возвращается в очередь и уходит
+ * следующим flush — поток планировщика не засыпает.
+ * Отказы в удержании по комнатам собирает {@link RoomContentionTracker}.
+ */
+@Component
+@Slf4j
+public class RoomHoldManager {
+
+    public enum HoldResult {
+        ACQUIRED, ALREADY_HELD, CONFLICT
+    }
+
+    static final long HOLD_TTL_MILLIS = 5 * 60 * 1000L;
+    private static final long EXPIRY_TICK_MILLIS = 1000L;
+    private static final String UPDATE_HOLD_SQL = "UPDATE rooms SET temp_block_request_id = ?, temp_blocked_until = ?, " +
+            "times_booked = CASE WHEN times_booked + ? < 0 THEN 0 ELSE times_booked + ? END WHERE id = ?";
+
+    private final Map<Long, Hold> holds = new ConcurrentHashMap<>();
+    private final Map<Long, PendingWrite> pending = new ConcurrentHashMap<>();
+    private final TimingWheel<HoldKey> expiryWheel =
+            new TimingWheel<>(EXPIRY_TICK_MILLIS, 512, System.currentTimeMillis());
+
+    private final RoomRepository roomRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final RoomContentionTracker contentionTracker;
+    private final RoomRankingIndex rankingIndex;
+    private final RoomOccupancyIndex occupancyIndex;
+    private final EntityManagerFactory entityManagerFactory;
+
+    private final Counter acquiredCounter;
+    private final Counter releasedCounter;
+    private final Counter committedCounter;
+    private final Counter expiredCounter;
+
+    public RoomHoldManager(RoomRepository roomRepository,
+                           JdbcTemplate jdbcTemplate,
+                           TransactionTemplate transactionTemplate,
+                           RoomContentionTracker contentionTracker,
+                           RoomRankingIndex rankingIndex,
+                           RoomOccupancyIndex occupancyIndex,
+                           EntityManagerFactory entityManagerFactory,
+                           MeterRegistry meterRegistry) {
+        this.roomRepository = roomRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.contentionTracker = contentionTracker;
+        this.rankingIndex = rankingIndex;
+        this.occupancyIndex = occupancyIndex;
+        this.entityManagerFactory = entityManagerFactory;
+        this.acquiredCounter = meterRegistry.counter("rooms.holds.acquired");
+        this.releasedCounter = meterRegistry.counter("rooms.holds.released");
+        this.committedCounter = meterRegistry.counter("rooms.holds.committed");
+        this.expiredCounter = meterRegistry.counter("rooms.holds.expired");
+        Gauge.builder("rooms.holds.active", holds, Map::size)
+                .description("Room holds not yet released or expired")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        List<Room> blocked = roomRepository.findByTempBlockRequestIdIsNotNull();
+        for (Room room : blocked) {
+            long until = room.getTempBlockedUntil() == null ? 0 : toMillis(room.getTempBlockedUntil());
+            holds.put(room.getId(), new Hold(room.getTempBlockRequestId(), until));
+            expiryWheel.schedule(new HoldKey(room.getId(), room.getTempBlockRequestId()), until);
+        }
+        log.info("Room holds loaded: {}", blocked.size());
+    }
+
+    public HoldResult tryHold(Long roomId, String requestId) {
+        long now = System.currentTimeMillis();
+        HoldResult[] result = new HoldResult[1];
+        String[] replaced = new String[1];
+        Hold hold = holds.compute(roomId, (id, current) -> {
+            // Владелец уже тот же — идемпотентный повтор, даже если срок истёк
+            if (current != null && current.requestId().equals(requestId)) {
+                result[0] = HoldResult.ALREADY_HELD;
+                return current;
+            }
+            if (current != null && current.expiresAt() > now) {
+                result[0] = HoldResult.CONFLICT;
+                return current;
+            }
+            // Истёкшее, но ещё не снятое колесом удержание другого запроса снимается здесь же
+            replaced[0] = current == null ? null : current.requestId();
+            result[0] = HoldResult.ACQUIRED;
+            return new Hold(requestId, now + HOLD_TTL_MILLIS);
+        });
+        if (result[0] == HoldResult.ACQUIRED) {
+            if (replaced[0] != null) {
+                expired(roomId, replaced[0]);
+            }
+            enqueue(roomId, hold.requestId(), hold.expiresAt(), 1);
+            rankingIndex.onHold(roomId);
+            expiryWheel.schedule(new HoldKey(roomId, requestId), hold.expiresAt());
+            acquiredCounter.increment();
+        } else if (result[0] == HoldResult.CONFLICT) {
+            contentionTracker.recordHoldConflict(roomId);
+        }
+        return result[0];
+    }
+
+    // Снимает удержание, только если его владелец — requestId
+    public boolean release(Long roomId, String requestId) {
+        if (!remove(roomId, requestId)) {
+            return false;
+        }
+        enqueue(roomId, null, 0, -1);
+        rankingIndex.onRelease(roomId, -1);
+        releasedCounter.increment();
+        return true;
+    }
+
+    // Бронь подтверждена: блокировка снимается, засчитанное удержанием бронирование остаётся
+    public boolean commit(Long roomId, String requestId) {
+        if (!remove(roomId, requestId)) {
+            return false;
+        }
+        enqueue(roomId, null, 0, 0);
+        rankingIndex.onRelease(roomId, 0);
+        committedCounter.increment();
+        return true;
+    }
+
+    private boolean remove(Long roomId, String requestId) {
+        boolean[] removed = new boolean[1];
+        holds.computeIfPresent(roomId, (id, current) -> {
+            if (!current.requestId().equals(requestId)) {
+                return current;
+            }
+            removed[0] = true;
+            return null;
+        });
+        return removed[0];
+    }
+
+    // Снимает истёкшие удержания; очистка строк уходит в ближайший flush
+    @Scheduled(fixedRate = EXPIRY_TICK_MILLIS)
+    public void expireHolds() {
+        long now = System.currentTimeMillis();
+        expiryWheel.advance(now, key -> expire(key, now));
+    }
+
+    private void expire(HoldKey key, long now) {
+        boolean[] expired = new boolean[1];
+        holds.computeIfPresent(key.roomId(), (id, current) -> {
+            // Удержание могли снять или перезахватить после постановки в колесо
+            if (!current.requestId().equals(key.requestId()) || current.expiresAt() > now) {
+                return current;
+            }
+            expired[0] = true;
+            return null;
+        });
+        if (expired[0]) {
+            expired(key.roomId(), key.requestId());
+        }
+    }
+
+    // Удержание requestId уже убрано из таблицы: блокировка строки снимается, даты освобождаются
+    private void expired(Long roomId, String requestId) {
+        enqueue(roomId, null, 0, 0);
+        rankingIndex.onRelease(roomId, 0);
+        try {
+            occupancyIndex.expire(requestId);
+        } catch (RuntimeException e) {
+            // Запись останется PENDING и будет снята при следующем старте как осиротевшая
+            log.error("Failed to expire reservation {}: {}", requestId, e.getMessage());
+        }
+        expiredCounter.increment();
+    }
+
+    public boolean isHeld(Long roomId) {
+        Hold hold = holds.get(roomId);
+        return hold != null && hold.expiresAt() > System.currentTimeMillis();
+    }
+
+    private void enqueue(Long roomId, String requestId, long expiresAt, int timesBookedDelta) {
+        PendingWrite write = new PendingWrite(requestId, expiresAt, timesBookedDelta);
+        pending.merge(roomId, write, (older, newer) -> new PendingWrite(newer.requestId(), newer.expiresAt(),
+                older.timesBookedDelta() + newer.timesBookedDelta()));
+    }
+
+    @Scheduled(fixedDelayString = "${rooms.holds.flush-interval-ms:100}")
+    public void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        List<Long> roomIds = new ArrayList<>(pending.keySet());
+        List<Map.Entry<Long, PendingWrite>> batch = new ArrayList<>(roomIds.size());
+        for (Long roomId : roomIds) {
+            PendingWrite write = pending.remove(roomId);
+            if (write != null) {
+                batch.add(Map.entry(roomId, write));
+            }
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(UPDATE_HOLD_SQL, batch,
+                    batch.size(), (ps, entry) -> {
+                        PendingWrite write = entry.getValue();
+                        ps.setString(1, write.requestId());
+                        ps.setTimestamp(2, write.requestId() == null ? null
+                                : Timestamp.valueOf(toDateTime(write.expiresAt())));
+                        ps.setInt(3, write.timesBookedDelta());
+                        ps.setInt(4, write.timesBookedDelta());
+                        ps.setLong(5, entry.getKey());
+                    }));
+        } catch (RuntimeException e) {
+            requeue(batch, e);
+            return;
+        }
+        for (Map.Entry<Long, PendingWrite> entry : batch) {
+            // UPDATE прошёл мимо Hibernate: из кэша второго уровня убирается только изменённая комната
+            entityManagerFactory.getCache().evict(Room.class, entry.getKey());
+        }
+    }
+
+    private void requeue(List<Map.Entry<Long, PendingWrite>> batch, RuntimeException e) {
+        // Возвращаем изменения в очередь, более свежие записи имеют приоритет
+        log.error("Failed to persist {} room holds, retrying on next flush: {}", batch.size(), e.getMessage());
+        for (Map.Entry<Long, PendingWrite> entry : batch) {
+            pending.merge(entry.getKey(), entry.getValue(), (newer, retry) -> new PendingWrite(
+                    newer.requestId(), newer.expiresAt(), retry.timesBookedDelta() + newer.timesBookedDelta()));
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    private static long toMillis(LocalDateTime dateTime) {
+        return dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private static LocalDateTime toDateTime(long millis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), ZoneId.systemDefault());
+    }
+
+    private record Hold(String requestId, long expiresAt) {
+    }
+
+    private record HoldKey(Long roomId, String requestId) {
+    }
+
+    private record PendingWrite(String requestId, long expiresAt, int timesBookedDelta) {
+    }
+}
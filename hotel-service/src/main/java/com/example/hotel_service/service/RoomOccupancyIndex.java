@@ -0,0 +1,449 @@
+package com.example.hotel_service.service;
+
+import com.example.hotel_service.entity.Booking;
+import com.example.hotel_service.entity.Room;
+import com.example.hotel_service.repository.BookingRepository;
+import com.example.hotel_service.repository.RoomRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * In-memory индекс занятости: для каждой комнаты — битовая карта ночей.
+ * <p>
+ * Бит дня d означает, что ночь с d на d+1 занята. Поиск свободных комнат на период
+ * [from, to) — пословная проверка битовой карты каждой комнаты, без обращения к БД.
+ * Карты копируются при записи, поэтому чтение идёт без блокировок.
+ * <p>
+ * Вторая карта комнаты отмечает дни заезда. Вместе они образуют куб отель × комната × день
+ * на примитивных массивах: сводка по всем отелям считается подсчётом бит параллельно
+ * по отелям в {@link ForkJoinPool}.
+ * <p>
+ * Источник истины — журнал bookings hotel-service: удержание пишется в него как PENDING
+ * в транзакции подтверждения, подтверждение брони переводит его в CONFIRMED, освобождение —
+ * в CANCELLED, истечение временной блокировки без подтверждения — в EXPIRED. При старте
+ * индекс восстанавливается из действующих записей, поэтому любое из них можно снять по requestId.
+ * <p>
+ * Календарь ограничен окном [{@link #firstDay()}, {@link #lastDay()}]: даты вне окна — 400.
+ * <p>
+ * Каждое применённое удержание и снятие публикуется как {@link OccupancyChange} —
+ * по этим событиям инкрементально обновляются дневные срезы {@link HotelOccupancyRollup}.
+ */
+@Component
+@Slf4j
+public class RoomOccupancyIndex {
+
+    // Хранится история за год назад и календарь на десять лет вперёд
+    private static final int HISTORY_DAYS = 366;
+    private static final int MAX_DAYS = HISTORY_DAYS + 3660;
+
+    private static final String PENDING = "PENDING";
+    private static final String CONFIRMED = "CONFIRMED";
+    private static final String CANCELLED = "CANCELLED";
+    private static final String EXPIRED = "EXPIRED";
+
+    private final long originDay = LocalDate.now().toEpochDay() - HISTORY_DAYS;
+
+    private final Map<Long, RoomDays> rooms = new ConcurrentHashMap<>();
+    private final Map<Long, List<RoomDays>> roomsByHotel = new ConcurrentHashMap<>();
+    private final Map<String, Hold> holds = new ConcurrentHashMap<>();
+    // Изменения удержаний — под чтением, снимок удержаний — под записью
+    private final ReadWriteLock holdsLock = new ReentrantReadWriteLock();
+
+    private final RoomRepository roomRepository;
+    private final BookingRepository bookingRepository;
+    private final ApplicationEventPublisher events;
+
+    public RoomOccupancyIndex(RoomRepository roomRepository,
+                              BookingRepository bookingRepository,
+                              ApplicationEventPublisher events) {
+        this.roomRepository = roomRepository;
+        this.bookingRepository = bookingRepository;
+        this.events = events;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @Transactional
+    public void load() {
+        for (Room room : roomRepository.findAll()) {
+            register(room);
+        }
+        int orphaned = bookingRepository.expireOrphanedHolds();
+        List<Object[]> reservations = bookingRepository.findActiveReservations();
+        for (Object[] row : reservations) {
+            Long roomId = (Long) row[0];
+            LocalDate from = (LocalDate) row[2];
+            LocalDate to = (LocalDate) row[3];
+            RoomDays days = rooms.get(roomId);
+            if (days != null && holds.putIfAbsent((String) row[1],
+                    new Hold(roomId, from, to, CONFIRMED.equals(row[4]))) == null) {
+                mark(days, from, to, true);
+            }
+        }
+        log.info("Occupancy index loaded: {} rooms, {} reservations, {} orphaned holds expired",
+                rooms.size(), reservations.size(), orphaned);
+    }
+
+    public void register(Room room) {
+        RoomDays days = new RoomDays(room.getId(), room.getHotel().getId(), Boolean.TRUE.equals(room.getAvailable()));
+        if (rooms.putIfAbsent(room.getId(), days) == null) {
+            roomsByHotel.computeIfAbsent(days.hotelId, id -> new CopyOnWriteArrayList<>()).add(days);
+        }
+    }
+
+    // Первая и последняя даты календаря индекса
+    public LocalDate firstDay() {
+        return LocalDate.ofEpochDay(originDay);
+    }
+
+    public LocalDate lastDay() {
+        return LocalDate.ofEpochDay(originDay + MAX_DAYS);
+    }
+
+    // 400, если период выходит за окно календаря
+    public void checkPeriod(LocalDate from, LocalDate to) {
+        dayIndex(from);
+        dayIndex(to);
+    }
+
+    public boolean isFree(Long roomId, LocalDate from, LocalDate to) {
+        RoomDays days = rooms.get(roomId);
+        return days == null || days.isFree(dayIndex(from), dayIndex(to));
+    }
+
+    // Свободные комнаты на период [from, to); hotelId == null — по всем отелям
+    public List<Long> findFreeRoomIds(LocalDate from, LocalDate to, Long hotelId) {
+        int fromIdx = dayIndex(from);
+        int toIdx = dayIndex(to);
+        Collection<RoomDays> candidates = hotelId == null
+                ? rooms.values()
+                : roomsByHotel.getOrDefault(hotelId, List.of());
+        List<Long> result = new ArrayList<>();
+        for (RoomDays days : candidates) {
+            if (days.available && days.isFree(fromIdx, toIdx)) {
+                result.add(days.roomId);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Занимает даты под requestId: запись PENDING — в транзакции вызывающего,
+     * в индекс даты попадают после её коммита.
+     */
+    public void hold(Long roomId, String requestId, LocalDate from, LocalDate to) {
+        checkPeriod(from, to);
+        bookingRepository.save(Booking.builder()
+                .room(roomRepository.getReferenceById(roomId))
+                .requestId(requestId)
+                .startDate(from)
+                .endDate(to)
+                .status(PENDING)
+                .createdAt(LocalDateTime.now())
+                .build());
+        afterCommit(() -> {
+            RoomDays days = rooms.get(roomId);
+            if (days != null && holds.putIfAbsent(requestId, new Hold(roomId, from, to, false)) == null) {
+                mark(days, from, to, true);
+                events.publishEvent(new OccupancyChange(days.hotelId, from, to, 1));
+            }
+        });
+    }
+
+    // Удержание стало бронью: истечение временной блокировки его больше не снимает. false — удержания нет
+    public boolean commit(String requestId) {
+        if (bookingRepository.updateStatus(requestId, List.of(PENDING, CONFIRMED), CONFIRMED) == 0) {
+            return false;
+        }
+        afterCommit(() -> holds.computeIfPresent(requestId, (id, hold) -> hold.committed()
+                ? hold
+                : new Hold(hold.roomId(), hold.from(), hold.to(), true)));
+        return true;
+    }
+
+    // Бронь или удержание уже освобождены
+    public boolean isReleased(String requestId) {
+        return bookingRepository.existsByRequestIdAndStatus(requestId, CANCELLED);
+    }
+
+    public void release(String requestId) {
+        bookingRepository.updateStatus(requestId, List.of(PENDING, CONFIRMED), CANCELLED);
+        afterCommit(() -> remove(requestId));
+    }
+
+    // Временная блокировка истекла: даты освобождаются, только если удержание так и не подтвердили.
+    // Своя транзакция: истечение чужого удержания не откатывается вместе с захватом комнаты новым запросом
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void expire(String requestId) {
+        if (bookingRepository.updateStatus(requestId, List.of(PENDING), EXPIRED) > 0) {
+            afterCommit(() -> remove(requestId));
+        }
+    }
+
+    private void remove(String requestId) {
+        Hold hold = holds.remove(requestId);
+        if (hold != null) {
+            RoomDays days = rooms.get(hold.roomId());
+            if (days != null) {
+                mark(days, hold.from(), hold.to(), false);
+                events.publishEvent(new OccupancyChange(days.hotelId, hold.from(), hold.to(), -1));
+            }
+        }
+    }
+
+    /**
+     * Передаёт действию активные удержания как изменения занятости.
+     * Пока действие выполняется, новые удержания и снятия не применяются,
+     * поэтому снимок согласован с уже опубликованными событиями.
+     */
+    public void snapshotHolds(Consumer<List<OccupancyChange>> action) {
+        holdsLock.writeLock().lock();
+        try {
+            List<OccupancyChange> snapshot = new ArrayList<>(holds.size());
+            for (Hold hold : holds.values()) {
+                RoomDays days = rooms.get(hold.roomId());
+                if (days != null) {
+                    snapshot.add(new OccupancyChange(days.hotelId, hold.from(), hold.to(), 1));
+                }
+            }
+            action.accept(snapshot);
+        } finally {
+            holdsLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Заезды и занятые номеро-ночи каждого отеля за ночи [from, to).
+     * Отели делятся между потоками общего пула fork-join, внутри отеля — пословный подсчёт бит.
+     */
+    public List<HotelOccupancy> aggregateByHotel(LocalDate from, LocalDate to) {
+        List<Map.Entry<Long, List<RoomDays>>> hotels = new ArrayList<>(roomsByHotel.entrySet());
+        return ForkJoinPool.commonPool().invoke(
+                new HotelAggregation(hotels, 0, hotels.size(), dayIndex(from), dayIndex(to)));
+    }
+
+    public int roomCount(Long hotelId) {
+        return hotelId == null ? rooms.size() : roomsByHotel.getOrDefault(hotelId, List.of()).size();
+    }
+
+    // Журнал может хранить даты старше окна: в индекс попадает только их часть внутри окна
+    private void mark(RoomDays days, LocalDate from, LocalDate to, boolean occupied) {
+        long fromIdx = from.toEpochDay() - originDay;
+        long toIdx = to.toEpochDay() - originDay;
+        days.occupy(clamp(fromIdx), clamp(toIdx), fromIdx >= 0 && fromIdx <= MAX_DAYS, occupied);
+    }
+
+    private int dayIndex(LocalDate date) {
+        long idx = date.toEpochDay() - originDay;
+        if (idx < 0 || idx > MAX_DAYS) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Date " + date + " is outside of the calendar " + firstDay() + " - " + lastDay());
+        }
+        return (int) idx;
+    }
+
+    private static int clamp(long idx) {
+        return (int) Math.max(0, Math.min(MAX_DAYS, idx));
+    }
+
+    private void afterCommit(Runnable action) {
+        Runnable locked = () -> {
+            holdsLock.readLock().lock();
+            try {
+                action.run();
+            } finally {
+                holdsLock.readLock().unlock();
+            }
+        };
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            locked.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                locked.run();
+            }
+        });
+    }
+
+    // Ночи [from, to) отеля заняты (delta = 1) или освобождены (delta = -1) одним бронированием
+    public record OccupancyChange(Long hotelId, LocalDate from, LocalDate to, int delta) {
+    }
+
+    private record Hold(Long roomId, LocalDate from, LocalDate to, boolean committed) {
+    }
+
+    public record HotelOccupancy(Long hotelId, int rooms, long checkIns, long roomNights) {
+    }
+
+    // Делит диапазон отелей пополам, пока он больше порога, и склеивает результаты половин
+    private static final class HotelAggregation extends RecursiveTask<List<HotelOccupancy>> {
+        private static final int SEQUENTIAL_THRESHOLD = 16;
+
+        private final List<Map.Entry<Long, List<RoomDays>>> hotels;
+        private final int lo;
+        private final int hi;
+        private final int fromDay;
+        private final int toDay;
+
+        private HotelAggregation(List<Map.Entry<Long, List<RoomDays>>> hotels, int lo, int hi, int fromDay, int toDay) {
+            this.hotels = hotels;
+            this.lo = lo;
+            this.hi = hi;
+            this.fromDay = fromDay;
+            this.toDay = toDay;
+        }
+
+        @Override
+        protected List<HotelOccupancy> compute() {
+            if (hi - lo <= SEQUENTIAL_THRESHOLD) {
+                List<HotelOccupancy> result = new ArrayList<>(hi - lo);
+                for (int i = lo; i < hi; i++) {
+                    result.add(aggregate(hotels.get(i).getKey(), hotels.get(i).getValue()));
+                }
+                return result;
+            }
+            int mid = (lo + hi) >>> 1;
+            HotelAggregation left = new HotelAggregation(hotels, lo, mid, fromDay, toDay);
+            left.fork();
+            List<HotelOccupancy> right = new HotelAggregation(hotels, mid, hi, fromDay, toDay).compute();
+            List<HotelOccupancy> result = left.join();
+            result.addAll(right);
+            return result;
+        }
+
+        private HotelOccupancy aggregate(Long hotelId, List<RoomDays> rooms) {
+            long checkIns = 0;
+            long roomNights = 0;
+            for (RoomDays days : rooms) {
+                checkIns += countBits(days.arrivals, fromDay, toDay);
+                roomNights += countBits(days.words, fromDay, toDay);
+            }
+            return new HotelOccupancy(hotelId, rooms.size(), checkIns, roomNights);
+        }
+    }
+
+    // Число установленных бит в [from, to)
+    static long countBits(long[] w, int from, int to) {
+        if (from >= to || (from >>> 6) >= w.length) {
+            return 0;
+        }
+        int fromWord = from >>> 6;
+        int toWord = (to - 1) >>> 6;
+        long firstMask = -1L << from;
+        long lastMask = -1L >>> -to;
+        if (fromWord == toWord) {
+            return Long.bitCount(w[fromWord] & firstMask & lastMask);
+        }
+        long count = Long.bitCount(w[fromWord] & firstMask);
+        int end = Math.min(toWord, w.length);
+        for (int i = fromWord + 1; i < end; i++) {
+            count += Long.bitCount(w[i]);
+        }
+        if (toWord < w.length) {
+            count += Long.bitCount(w[toWord] & lastMask);
+        }
+        return count;
+    }
+
+    static final class RoomDays {
+        private static final long WORD_MASK = -1L;
+
+        private final Long roomId;
+        private final Long hotelId;
+        private final boolean available;
+        private volatile long[] words = new long[0];
+        // Бит дня d — в этот день начинается бронирование
+        private volatile long[] arrivals = new long[0];
+
+        RoomDays(Long roomId, Long hotelId, boolean available) {
+            this.roomId = roomId;
+            this.hotelId = hotelId;
+            this.available = available;
+        }
+
+        // Проверка диапазона бит [from, to): по одному слову на 64 дня
+        boolean isFree(int from, int to) {
+            if (from >= to) {
+                return true;
+            }
+            long[] w = words;
+            int fromWord = from >>> 6;
+            int toWord = (to - 1) >>> 6;
+            if (fromWord >= w.length) {
+                return true;
+            }
+            long firstMask = WORD_MASK << from;
+            long lastMask = WORD_MASK >>> -to;
+            if (fromWord == toWord) {
+                return (w[fromWord] & firstMask & lastMask) == 0;
+            }
+            if ((w[fromWord] & firstMask) != 0) {
+                return false;
+            }
+            int end = Math.min(toWord, w.length);
+            for (int i = fromWord + 1; i < end; i++) {
+                if (w[i] != 0) {
+                    return false;
+                }
+            }
+            return toWord >= w.length || (w[toWord] & lastMask) == 0;
+        }
+
+        synchronized void occupy(int from, int to, boolean arrival, boolean value) {
+            if (from >= to) {
+                return;
+            }
+            words = set(words, from, to, value);
+            if (arrival) {
+                arrivals = set(arrivals, from, from + 1, value);
+            }
+        }
+
+        private static long[] set(long[] words, int from, int to, boolean value) {
+            int fromWord = from >>> 6;
+            int toWord = (to - 1) >>> 6;
+            long[] w = Arrays.copyOf(words, Math.max(words.length, toWord + 1));
+            long firstMask = WORD_MASK << from;
+            long lastMask = WORD_MASK >>> -to;
+            for (int i = fromWord; i <= toWord; i++) {
+                long mask = WORD_MASK;
+                if (i == fromWord) {
+                    mask &= firstMask;
+                }
+                if (i == toWord) {
+                    mask &= lastMask;
+                }
+                w[i] = value ? (w[i] | mask) : (w[i] & ~mask);
+            }
+            return w;
+        }
+    }
+}
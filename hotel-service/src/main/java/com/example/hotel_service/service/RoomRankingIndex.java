@@ -0,0 +1,114 @@
+package com.example.hotel_service.service;
+
+import com.example.hotel_service.dto.RoomDTO;
+import com.example.hotel_service.entity.Room;
+import com.example.hotel_service.repository.RoomRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.function.LongPredicate;
+
+/**
+ * Рейтинг комнат для автовыбора: доступные и не удержанные комнаты, упорядоченные
+ * по (timesBooked, id), в конкурентном skip-list.
+ * <p>
+ * Индекс обновляется на месте при каждом удержании, снятии и истечении удержания,
+ * поэтому первые K комнат читаются за O(log n + K) без сортировки и без обращения к БД.
+ * Занятость по датам рейтинг не хранит — её проверяет фильтр, переданный в {@link #top}.
+ * Изменения одной комнаты сериализуются через compute по её ключу.
+ */
+@Component
+@Slf4j
+public class RoomRankingIndex {
+
+    private final NavigableSet<RankKey> ranking = new ConcurrentSkipListSet<>();
+    private final Map<Long, RoomState> rooms = new ConcurrentHashMap<>();
+
+    private final RoomRepository roomRepository;
+
+    public RoomRankingIndex(RoomRepository roomRepository) {
+        this.roomRepository = roomRepository;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        List<Room> all = roomRepository.findAll();
+        all.forEach(this::register);
+        log.info("Room ranking loaded: {} rooms, {} ranked", all.size(), ranking.size());
+    }
+
+    public void register(Room room) {
+        RoomState state = new RoomState(room.getHotel().getId(), room.getNumber(),
+                Boolean.TRUE.equals(room.getAvailable()), room.getTimesBooked(),
+                room.getTempBlockRequestId() != null);
+        rooms.compute(room.getId(), (id, current) -> replace(id, current, state));
+    }
+
+    // Комната удержана: выпадает из рейтинга, счётчик бронирований растёт
+    public void onHold(Long roomId) {
+        rooms.computeIfPresent(roomId, (id, current) -> replace(id, current, current.withHold(true, 1)));
+    }
+
+    public void onRelease(Long roomId, int timesBookedDelta) {
+        rooms.computeIfPresent(roomId, (id, current) -> replace(id, current, current.withHold(false, timesBookedDelta)));
+    }
+
+    // Первые limit комнат по возрастанию (timesBooked, id), прошедших фильтр
+    public List<RoomDTO> top(int limit, LongPredicate filter) {
+        List<RoomDTO> result = new ArrayList<>(Math.min(limit, 64));
+        for (RankKey key : ranking) {
+            if (result.size() >= limit) {
+                break;
+            }
+            RoomState state = rooms.get(key.roomId());
+            // Ключ мог устареть между удалением и вставкой при параллельном обновлении
+            if (state != null && state.ranked() && state.timesBooked() == key.timesBooked()
+                    && filter.test(key.roomId())) {
+                result.add(state.toDTO(key.roomId()));
+            }
+        }
+        return result;
+    }
+
+    // Вызывается внутри compute: старый ключ убирается из рейтинга, новый добавляется
+    private RoomState replace(Long roomId, RoomState current, RoomState next) {
+        if (current != null && current.ranked()) {
+            ranking.remove(new RankKey(current.timesBooked(), roomId));
+        }
+        if (next.ranked()) {
+            ranking.add(new RankKey(next.timesBooked(), roomId));
+        }
+        return next;
+    }
+
+    private record RoomState(Long hotelId, String number, boolean available, int timesBooked, boolean held) {
+
+        boolean ranked() {
+            return available && !held;
+        }
+
+        RoomState withHold(boolean held, int timesBookedDelta) {
+            return new RoomState(hotelId, number, available, Math.max(0, timesBooked + timesBookedDelta), held);
+        }
+
+        RoomDTO toDTO(Long roomId) {
+            return new RoomDTO(roomId, hotelId, number, available, timesBooked);
+        }
+    }
+
+    private record RankKey(int timesBooked, long roomId) implements Comparable<RankKey> {
+        @Override
+        public int compareTo(RankKey other) {
+            int byTimesBooked = Integer.compare(timesBooked, other.timesBooked);
+            return byTimesBooked != 0 ? byTimesBooked : Long.compare(roomId, other.roomId);
+        }
+    }
+}
@@ -1,19 +1,39 @@
 package com.example.hotel_service.service;
 
+import com.example.hotel_service.dto.BatchConfirmAvailabilityRequest;
+import com.example.hotel_service.dto.BatchConfirmAvailabilityResponse;
 import com.example.hotel_service.dto.ConfirmAvailabilityRequest;
 import com.example.hotel_service.dto.RoomDTO;
+import com.example.hotel_service.dto.RoomHoldDTO;
+import com.example.hotel_service.dto.RoomPageDTO;
+import com.example.hotel_service.dto.RoomReservationDTO;
 import com.example.hotel_service.mapper.RoomMapper;
 import com.example.hotel_service.entity.Hotel;
 import com.example.hotel_service.entity.Room;
 import com.example.hotel_service.repository.HotelRepository;
 import com.example.hotel_service.repository.RoomRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.persistence.EntityManager;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.interceptor.TransactionAspectSupport;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.server.ResponseStatusException;
 
-import java.time.LocalDateTime;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @Slf4j
@@ -22,13 +42,29 @@ public class RoomService {
     private final RoomRepository roomRepository;
     private final HotelRepository hotelRepository;
     private final RoomMapper roomMapper;
+    private final RoomOccupancyIndex occupancyIndex;
+    private final RoomHoldManager holdManager;
+    private final RoomRankingIndex rankingIndex;
+    private final EntityManager entityManager;
+    // Состав группового удержания по requestId живёт столько же, сколько сами удержания
+    private final Cache<String, List<Long>> batchRooms = Caffeine.newBuilder()
+            .expireAfterWrite(Duration.ofMillis(RoomHoldManager.HOLD_TTL_MILLIS))
+            .build();
 
     public RoomService(RoomRepository roomRepository,
                        HotelRepository hotelRepository,
-                       RoomMapper roomMapper) {
+                       RoomMapper roomMapper,
+                       RoomOccupancyIndex occupancyIndex,
+                       RoomHoldManager holdManager,
+                       RoomRankingIndex rankingIndex,
+                       EntityManager entityManager) {
         this.roomRepository = roomRepository;
         this.hotelRepository = hotelRepository;
         this.roomMapper = roomMapper;
+        this.occupancyIndex = occupancyIndex;
+        this.holdManager = holdManager;
+        this.rankingIndex = rankingIndex;
+        this.entityManager = entityManager;
     }
 
     public RoomDTO createRoom(RoomDTO roomDTO) {
@@ -40,74 +76,255 @@ public class RoomService {
         room.setTimesBooked(0);
 
         Room saved = roomRepository.save(room);
+        // Комната появляется в индексах только после коммита: при откате её там не будет
+        afterCommit(() -> {
+            occupancyIndex.register(saved);
+            rankingIndex.register(saved);
+        });
         log.info("Room created: {}", saved.getId());
         return roomMapper.toDTO(saved);
     }
 
+    // Читается из кэша второго уровня, в БД — только при промахе
+    @Transactional(readOnly = true)
+    public RoomDTO getRoom(Long roomId) {
+        return roomRepository.findById(roomId)
+                .map(roomMapper::toDTO)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Room not found"));
+    }
+
     @Transactional(readOnly = true)
     public List<RoomDTO> getAvailableRooms() {
-        return roomRepository.findByAvailableTrue().stream()
-                .filter(this::isNotTempBlocked)
+        return roomRepository.findAvailableUnblocked().stream()
+                .map(roomMapper::toDTO)
+                .collect(Collectors.toList());
+    }
+
+    // Страница доступных комнат после курсора after (id последней комнаты предыдущей страницы)
+    @Transactional(readOnly = true)
+    public RoomPageDTO getAvailableRoomsPage(long after, int size) {
+        List<RoomDTO> items = roomRepository.findAvailableUnblockedAfter(after, PageRequest.of(0, size)).stream()
                 .map(roomMapper::toDTO)
                 .collect(Collectors.toList());
+        Long nextAfter = items.size() < size ? null : items.get(items.size() - 1).getId();
+        return new RoomPageDTO(items, nextAfter);
     }
 
+    /**
+     * Обходит доступные комнаты курсором БД, не собирая их в список.
+     * Прочитанные сущности сразу отсоединяются, поэтому контекст персистентности не растёт.
+     */
     @Transactional(readOnly = true)
-    public List<RoomDTO> getRecommendedRooms() {
-        return roomRepository.findAvailableRoomsOrderedByTimesBooked().stream()
-                .filter(this::isNotTempBlocked)
+    public void forEachAvailableRoom(Consumer<RoomDTO> consumer) {
+        try (Stream<Room> rooms = roomRepository.streamAvailableUnblocked()) {
+            rooms.forEach(room -> {
+                consumer.accept(roomMapper.toDTO(room));
+                entityManager.detach(room);
+            });
+        }
+    }
+
+    // Поиск по календарю отвечает индекс занятости; из БД догружаются только найденные комнаты
+    @Transactional(readOnly = true)
+    public List<RoomDTO> getAvailableRooms(LocalDate from, LocalDate to, Long hotelId) {
+        List<Long> roomIds = occupancyIndex.findFreeRoomIds(from, to, hotelId);
+        if (roomIds.isEmpty()) {
+            return List.of();
+        }
+        return roomRepository.findAllById(roomIds).stream()
+                .sorted(Comparator.comparing(Room::getId))
                 .map(roomMapper::toDTO)
                 .collect(Collectors.toList());
     }
 
+    // Рейтинг и календарь хранятся в памяти, транзакция не нужна; без дат — лучшие комнаты без учёта календаря
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public List<RoomDTO> getRecommendedRooms(int limit, LocalDate from, LocalDate to) {
+        if (from == null) {
+            return rankingIndex.top(limit, roomId -> true);
+        }
+        occupancyIndex.checkPeriod(from, to);
+        return rankingIndex.top(limit, roomId -> occupancyIndex.isFree(roomId, from, to));
+    }
+
     public boolean confirmAvailability(Long roomId, ConfirmAvailabilityRequest request) {
+        occupancyIndex.checkPeriod(request.getStartDate(), request.getEndDate());
         Room room = roomRepository.findById(roomId)
                 .orElseThrow(() -> new RuntimeException("Room not found"));
+        return hold(room, request.getRequestId(), request.getStartDate(), request.getEndDate())
+                != RoomHoldManager.HoldResult.CONFLICT;
+    }
 
-        // Проверка идемпотентности
-        if (request.getRequestId().equals(room.getTempBlockRequestId())) {
-            log.info("Request {} already processed for room {}", request.getRequestId(), roomId);
-            return true;
+    /**
+     * Групповое удержание комнат: либо удерживаются все комнаты, либо ни одна.
+     * Каждая комната блокируется под собственным requestId вида {@code <requestId>:<roomId>};
+     * при первой недоступной комнате уже захваченные в этом вызове удержания снимаются.
+     * <p>
+     * Подобранные комнаты закрепляются за requestId, поэтому повтор запроса удерживает те же комнаты
+     * и не оставляет висеть удержания первой попытки. Повтор с другим набором roomIds — 422.
+     */
+    public BatchConfirmAvailabilityResponse confirmAvailabilityBatch(BatchConfirmAvailabilityRequest request) {
+        occupancyIndex.checkPeriod(request.getStartDate(), request.getEndDate());
+        List<Room> rooms = resolveBatchRooms(request);
+        if (rooms.isEmpty()) {
+            batchRooms.invalidate(request.getRequestId());
+            return new BatchConfirmAvailabilityResponse(false, List.of());
         }
 
-        // Проверка доступности
-        if (!room.getAvailable() || isNotTempBlocked(room)) {
-            log.warn("Room {} is not available", roomId);
-            return false;
+        List<RoomHoldDTO> holds = new ArrayList<>(rooms.size());
+        List<RoomHoldDTO> acquired = new ArrayList<>(rooms.size());
+        for (Room room : rooms) {
+            String holdId = request.getRequestId() + ":" + room.getId();
+            RoomHoldManager.HoldResult result = hold(room, holdId, request.getStartDate(), request.getEndDate());
+            if (result == RoomHoldManager.HoldResult.CONFLICT) {
+                acquired.forEach(h -> holdManager.release(h.getRoomId(), h.getRequestId()));
+                batchRooms.invalidate(request.getRequestId());
+                TransactionAspectSupport.currentTransactionStatus().setRollbackOnly();
+                log.warn("Batch {} rolled back: room {} is not available", request.getRequestId(), room.getId());
+                return new BatchConfirmAvailabilityResponse(false, List.of());
+            }
+            RoomHoldDTO hold = new RoomHoldDTO(room.getId(), holdId);
+            if (result == RoomHoldManager.HoldResult.ACQUIRED) {
+                acquired.add(hold);
+            }
+            holds.add(hold);
         }
+        log.info("Batch {} holds {} rooms", request.getRequestId(), holds.size());
+        return new BatchConfirmAvailabilityResponse(true, holds);
+    }
 
-        // Временная блокировка на 5 минут
-        room.setTempBlockedUntil(LocalDateTime.now().plusMinutes(5));
-        room.setTempBlockRequestId(request.getRequestId());
-        room.setTimesBooked(room.getTimesBooked() + 1);
+    /**
+     * Брони подтверждены в booking-service: удержания становятся постоянными, временные блокировки снимаются.
+     * Если удержание успело истечь, даты занимаются заново, пока они свободны; уже освобождённые брони
+     * пропускаются — команда подтверждения могла прийти позже отмены.
+     */
+    public void commitReservations(List<RoomReservationDTO> reservations) {
+        for (RoomReservationDTO reservation : reservations) {
+            commitReservation(reservation);
+        }
+    }
 
-        roomRepository.save(room);
-        log.info("Room {} temporarily blocked for request {}", roomId, request.getRequestId());
-        return true;
+    private void commitReservation(RoomReservationDTO reservation) {
+        Long roomId = reservation.getRoomId();
+        String requestId = reservation.getRequestId();
+        if (occupancyIndex.commit(requestId)) {
+            holdManager.commit(roomId, requestId);
+            log.info("Reservation {} committed for room {}", requestId, roomId);
+            return;
+        }
+        if (occupancyIndex.isReleased(requestId)) {
+            log.info("Reservation {} was released before commit, skipping", requestId);
+            return;
+        }
+        occupancyIndex.checkPeriod(reservation.getStartDate(), reservation.getEndDate());
+        Room room = roomRepository.findById(roomId).orElse(null);
+        if (room != null
+                && hold(room, requestId, reservation.getStartDate(), reservation.getEndDate()) == RoomHoldManager.HoldResult.ACQUIRED
+                && occupancyIndex.commit(requestId)) {
+            holdManager.commit(roomId, requestId);
+            log.warn("Reservation {} expired before commit and was restored for room {}", requestId, roomId);
+            return;
+        }
+        log.error("Reservation {} for room {} could not be committed: dates are no longer available", requestId, roomId);
     }
 
     public void releaseRoom(Long roomId, String requestId) {
-        Room room = roomRepository.findById(roomId)
-                .orElseThrow(() -> new RuntimeException("Room not found"));
+        // Даты освобождаются и после истечения временной блокировки (отмена подтверждённой брони)
+        occupancyIndex.release(requestId);
 
-        // Проверка идемпотентности
-        if (!requestId.equals(room.getTempBlockRequestId())) {
+        // Проверка идемпотентности: снимается только удержание с тем же requestId
+        if (!holdManager.release(roomId, requestId)) {
             log.info("Request {} does not match current block, skipping release", requestId);
             return;
         }
+        log.info("Room {} released for request {}", roomId, requestId);
+    }
+
+    public void releaseRooms(List<RoomHoldDTO> holds) {
+        for (RoomHoldDTO hold : holds) {
+            releaseRoom(hold.getRoomId(), hold.getRequestId());
+        }
+    }
 
-        room.setTempBlockedUntil(null);
-        room.setTempBlockRequestId(null);
-        room.setTimesBooked(Math.max(0, room.getTimesBooked() - 1));
+    // Пустой список — запрос не может быть выполнен целиком
+    private List<Room> resolveBatchRooms(BatchConfirmAvailabilityRequest request) {
+        List<Long> requested = request.getRoomIds() == null ? List.of()
+                : request.getRoomIds().stream().distinct().sorted().collect(Collectors.toList());
+        List<Long> pinned = batchRooms.get(request.getRequestId(),
+                requestId -> requested.isEmpty() ? pickBatchRooms(request) : requested);
+        if (pinned == null) {
+            return List.of();
+        }
+        boolean sameRooms = requested.isEmpty()
+                ? request.getRoomCount() != null && pinned.size() == request.getRoomCount()
+                : pinned.equals(requested);
+        if (!sameRooms) {
+            throw new ResponseStatusException(HttpStatus.UNPROCESSABLE_ENTITY,
+                    "requestId " + request.getRequestId() + " was already used for other rooms");
+        }
+        List<Room> rooms = roomRepository.findAllById(pinned).stream()
+                .sorted(Comparator.comparing(Room::getId))
+                .collect(Collectors.toList());
+        return rooms.size() == pinned.size() ? rooms : List.of();
+    }
 
-        roomRepository.save(room);
-        log.info("Room {} released for request {}", roomId, requestId);
+    // roomCount свободных на эти даты комнат отеля, реже всего бронировавшихся; null — столько нет
+    private List<Long> pickBatchRooms(BatchConfirmAvailabilityRequest request) {
+        if (request.getHotelId() == null || request.getRoomCount() == null) {
+            return null;
+        }
+        List<Long> free = occupancyIndex.findFreeRoomIds(request.getStartDate(), request.getEndDate(), request.getHotelId());
+        List<Long> picked = roomRepository.findAllById(free).stream()
+                .filter(room -> !holdManager.isHeld(room.getId()))
+                .sorted(Comparator.comparing(Room::getTimesBooked).thenComparing(Room::getId))
+                .limit(request.getRoomCount())
+                .map(Room::getId)
+                .sorted()
+                .collect(Collectors.toList());
+        return picked.size() == request.getRoomCount() ? picked : null;
+    }
+
+    private RoomHoldManager.HoldResult hold(Room room, String requestId, LocalDate startDate, LocalDate endDate) {
+        Long roomId = room.getId();
+
+        // Проверка доступности
+        if (!room.getAvailable()) {
+            log.warn("Room {} is not available", roomId);
+            return RoomHoldManager.HoldResult.CONFLICT;
+        }
+
+        // Атомарный захват на 5 минут; повтор с тем же requestId идемпотентен
+        RoomHoldManager.HoldResult result = holdManager.tryHold(roomId, requestId);
+        if (result == RoomHoldManager.HoldResult.ALREADY_HELD) {
+            log.info("Request {} already processed for room {}", requestId, roomId);
+            return result;
+        }
+        if (result == RoomHoldManager.HoldResult.CONFLICT) {
+            log.warn("Room {} is temporarily blocked", roomId);
+            return result;
+        }
+
+        if (!occupancyIndex.isFree(roomId, startDate, endDate)) {
+            holdManager.release(roomId, requestId);
+            log.warn("Room {} is already occupied for {} - {}", roomId, startDate, endDate);
+            return RoomHoldManager.HoldResult.CONFLICT;
+        }
+
+        occupancyIndex.hold(roomId, requestId, startDate, endDate);
+        log.info("Room {} temporarily blocked for request {}", roomId, requestId);
+        return result;
     }
 
-    private boolean isNotTempBlocked(Room room) {
-        if (room.getTempBlockedUntil() == null) {
-            return true;
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
         }
-        return LocalDateTime.now().isAfter(room.getTempBlockedUntil());
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
     }
 }
@@ -0,0 +1,83 @@
+package com.example.hotel_service.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Consumer;
+
+/**
+ * Хешированное колесо таймеров: постановка и снятие по сроку — O(1).
+ * <p>
+ * Элемент попадает в слот первого тика не раньше своего срока; элементы со сроком больше
+ * одного оборота остаются в слоте до нужного оборота. {@link #advance} вызывается одним потоком.
+ * <p>
+ * Курсор {@code currentTick} сдвигается перед разбором каждого слота. Если элемент попал
+ * в слот, который курсор уже прошёл (постановка параллельно с {@link #advance}), он
+ * перекладывается в очередь просроченных и отдаётся ближайшим {@link #advance}, а не через оборот.
+ */
+final class TimingWheel<T> {
+
+    private final long tickMillis;
+    private final Queue<Entry<T>>[] slots;
+    private final Queue<Entry<T>> due = new ConcurrentLinkedQueue<>();
+    private final int mask;
+    private volatile long currentTick;
+
+    @SuppressWarnings("unchecked")
+    TimingWheel(long tickMillis, int slotCount, long startMillis) {
+        if (Integer.bitCount(slotCount) != 1) {
+            throw new IllegalArgumentException("slotCount must be a power of two");
+        }
+        this.tickMillis = tickMillis;
+        this.slots = new Queue[slotCount];
+        for (int i = 0; i < slotCount; i++) {
+            slots[i] = new ConcurrentLinkedQueue<>();
+        }
+        this.mask = slotCount - 1;
+        this.currentTick = startMillis / tickMillis;
+    }
+
+    void schedule(T item, long deadlineMillis) {
+        // Тик округляется вверх, чтобы элемент не сработал раньше срока;
+        // уже просроченные элементы обрабатываются на ближайшем тике
+        long tick = Math.max(Math.floorDiv(deadlineMillis + tickMillis - 1, tickMillis), currentTick + 1);
+        Entry<T> entry = new Entry<>(item, tick);
+        Queue<Entry<T>> slot = slots[(int) (tick & mask)];
+        slot.add(entry);
+        // Курсор успел пройти слот: если advance ещё не забрал элемент, забираем сами
+        if (tick <= currentTick && slot.remove(entry)) {
+            due.add(entry);
+        }
+    }
+
+    // Продвигает колесо до nowMillis и отдаёт элементы, чей срок наступил
+    void advance(long nowMillis, Consumer<T> expired) {
+        long nowTick = nowMillis / tickMillis;
+        long from = Math.max(currentTick + 1, nowTick - mask);
+        for (long tick = from; tick <= nowTick; tick++) {
+            currentTick = tick;
+            Queue<Entry<T>> slot = slots[(int) (tick & mask)];
+            List<Entry<T>> later = new ArrayList<>();
+            Entry<T> entry;
+            while ((entry = slot.poll()) != null) {
+                if (entry.tick() <= nowTick) {
+                    expired.accept(entry.item());
+                } else {
+                    later.add(entry);
+                }
+            }
+            slot.addAll(later);
+        }
+        if (nowTick > currentTick) {
+            currentTick = nowTick;
+        }
+        Entry<T> entry;
+        while ((entry = due.poll()) != null) {
+            expired.accept(entry.item());
+        }
+    }
+
+    private record Entry<T>(T item, long tick) {
+    }
+}
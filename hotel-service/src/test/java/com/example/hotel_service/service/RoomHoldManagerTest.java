@@ -0,0 +1,167 @@
+package com.example.hotel_service.service;
+
+import com.example.hotel_service.dto.RoomDTO;
+import com.example.hotel_service.entity.Hotel;
+import com.example.hotel_service.entity.Room;
+import com.example.hotel_service.repository.BookingRepository;
+import com.example.hotel_service.repository.RoomRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Proxy;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Захват и снятие удержаний в памяти: владелец, повтор, конфликт и влияние на рейтинг.
+ * Запись в БД (flush) и истечение по колесу таймеров здесь не вызываются; перехват истёкшего
+ * удержания проверяется с настоящим {@link RoomOccupancyIndex} поверх заглушек репозиториев.
+ */
+class RoomHoldManagerTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final RoomRankingIndex rankingIndex = new RoomRankingIndex(null);
+    private final RoomHoldManager holds = new RoomHoldManager(null, null, null,
+            new RoomContentionTracker(registry), rankingIndex, null, null, registry);
+
+    @BeforeEach
+    void rooms() {
+        rankingIndex.register(room(1L, 0));
+        rankingIndex.register(room(2L, 0));
+    }
+
+    @Test
+    void freeRoomIsAcquired() {
+        assertEquals(RoomHoldManager.HoldResult.ACQUIRED, holds.tryHold(1L, "r1"));
+
+        assertTrue(holds.isHeld(1L));
+        assertFalse(holds.isHeld(2L));
+        assertEquals(1.0, registry.counter("rooms.holds.acquired").count());
+    }
+
+    @Test
+    void repeatBySameOwnerIsIdempotent() {
+        holds.tryHold(1L, "r1");
+
+        assertEquals(RoomHoldManager.HoldResult.ALREADY_HELD, holds.tryHold(1L, "r1"));
+        assertEquals(1.0, registry.counter("rooms.holds.acquired").count());
+    }
+
+    @Test
+    void otherOwnerGetsConflict() {
+        holds.tryHold(1L, "r1");
+
+        assertEquals(RoomHoldManager.HoldResult.CONFLICT, holds.tryHold(1L, "r2"));
+        assertEquals(1.0, registry.counter("rooms.holds.conflicts").count());
+    }
+
+    @Test
+    void onlyOwnerReleases() {
+        holds.tryHold(1L, "r1");
+
+        assertFalse(holds.release(1L, "r2"));
+        assertTrue(holds.isHeld(1L));
+
+        assertTrue(holds.release(1L, "r1"));
+        assertFalse(holds.isHeld(1L));
+        assertFalse(holds.release(1L, "r1"), "Second release must be a no-op");
+        assertEquals(RoomHoldManager.HoldResult.ACQUIRED, holds.tryHold(1L, "r2"));
+    }
+
+    @Test
+    void onlyOwnerCommits() {
+        holds.tryHold(1L, "r1");
+
+        assertFalse(holds.commit(1L, "r2"));
+        assertTrue(holds.commit(1L, "r1"));
+        assertFalse(holds.isHeld(1L));
+    }
+
+    @Test
+    void heldRoomLeavesRanking() {
+        holds.tryHold(1L, "r1");
+
+        assertEquals(List.of(2L), ids(rankingIndex.top(10, id -> true)));
+    }
+
+    @Test
+    void releaseReturnsRoomWithoutCountingBooking() {
+        holds.tryHold(1L, "r1");
+        holds.release(1L, "r1");
+
+        List<RoomDTO> top = rankingIndex.top(10, id -> true);
+        assertEquals(List.of(1L, 2L), ids(top));
+        assertEquals(0, top.get(0).getTimesBooked());
+    }
+
+    @Test
+    void commitReturnsRoomWithCountedBooking() {
+        holds.tryHold(1L, "r1");
+        holds.commit(1L, "r1");
+
+        List<RoomDTO> top = rankingIndex.top(10, id -> true);
+        assertEquals(List.of(2L, 1L), ids(top));
+        assertEquals(1, top.get(1).getTimesBooked());
+    }
+
+    @Test
+    void expiredHoldTakenOverFreesItsDates() {
+        LocalDate from = LocalDate.now().plusDays(1);
+        LocalDate to = from.plusDays(2);
+        // Удержание r1 истекло минуту назад, колесо его ещё не сняло
+        Room room = room(1L, 0);
+        room.setTempBlockRequestId("r1");
+        room.setTempBlockedUntil(LocalDateTime.now().minusMinutes(1));
+        List<String> expired = new ArrayList<>();
+        RoomRepository roomRepository = stub(RoomRepository.class, (proxy, method, args) -> switch (method.getName()) {
+            case "findByTempBlockRequestIdIsNotNull" -> List.of(room);
+            case "getReferenceById" -> room;
+            default -> throw new UnsupportedOperationException(method.getName());
+        });
+        BookingRepository bookingRepository = stub(BookingRepository.class, (proxy, method, args) -> switch (method.getName()) {
+            case "save" -> args[0];
+            case "updateStatus" -> {
+                expired.add((String) args[0]);
+                yield 1;
+            }
+            default -> throw new UnsupportedOperationException(method.getName());
+        });
+        RoomOccupancyIndex occupancyIndex = new RoomOccupancyIndex(roomRepository, bookingRepository, event -> { });
+        occupancyIndex.register(room);
+        occupancyIndex.hold(1L, "r1", from, to);
+        RoomHoldManager manager = new RoomHoldManager(roomRepository, null, null,
+                new RoomContentionTracker(registry), rankingIndex, occupancyIndex, null, registry);
+        manager.load();
+
+        assertEquals(RoomHoldManager.HoldResult.ACQUIRED, manager.tryHold(1L, "r2"));
+
+        assertEquals(List.of("r1"), expired);
+        assertTrue(occupancyIndex.isFree(1L, from, to), "Dates of the replaced hold must be free again");
+        assertEquals(1.0, registry.counter("rooms.holds.expired").count());
+    }
+
+    private static List<Long> ids(List<RoomDTO> rooms) {
+        return rooms.stream().map(RoomDTO::getId).toList();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T stub(Class<T> type, InvocationHandler handler) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, handler);
+    }
+
+    private static Room room(Long id, int timesBooked) {
+        return Room.builder()
+                .id(id)
+                .hotel(Hotel.builder().id(10L).name("Hotel").address("Street").build())
+                .number(String.valueOf(100 + id))
+                .available(true)
+                .timesBooked(timesBooked)
+                .build();
+    }
+}
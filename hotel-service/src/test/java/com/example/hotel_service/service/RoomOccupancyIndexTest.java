@@ -0,0 +1,113 @@
+package com.example.hotel_service.service;
+
+import com.example.hotel_service.service.RoomOccupancyIndex.RoomDays;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Битовая карта ночей комнаты: маски первого и последнего слова, периоды на стыке слов
+ * и периоды, кратные 64 дням; подсчёт бит для сводки по отелям на тех же границах.
+ */
+class RoomOccupancyIndexTest {
+
+    private final RoomDays days = new RoomDays(1L, 1L, true);
+
+    @Test
+    void periodInsideOneWord() {
+        days.occupy(3, 5, true, true);
+
+        assertTrue(days.isFree(0, 3));
+        assertFalse(days.isFree(2, 4));
+        assertFalse(days.isFree(4, 5));
+        assertTrue(days.isFree(5, 10));
+    }
+
+    @Test
+    void periodAcrossWordBoundary() {
+        days.occupy(62, 66, true, true);
+
+        assertTrue(days.isFree(0, 62));
+        assertFalse(days.isFree(63, 64));
+        assertFalse(days.isFree(64, 65));
+        assertFalse(days.isFree(60, 63));
+        assertTrue(days.isFree(66, 200));
+    }
+
+    @Test
+    void periodOfWholeWord() {
+        days.occupy(64, 128, true, true);
+
+        assertTrue(days.isFree(0, 64));
+        assertFalse(days.isFree(63, 65));
+        assertFalse(days.isFree(127, 128));
+        assertTrue(days.isFree(128, 192));
+    }
+
+    @Test
+    void occupiedMiddleWordOfLongPeriod() {
+        days.occupy(100, 101, true, true);
+
+        assertFalse(days.isFree(10, 200));
+        assertTrue(days.isFree(10, 100));
+        assertTrue(days.isFree(101, 200));
+    }
+
+    @Test
+    void periodBeyondAllocatedWordsIsFree() {
+        days.occupy(3, 5, true, true);
+
+        assertTrue(days.isFree(1_000, 1_100));
+        assertTrue(days.isFree(64, 128));
+    }
+
+    @Test
+    void releaseClearsOnlyItsOwnNights() {
+        days.occupy(10, 20, true, true);
+        days.occupy(20, 30, true, true);
+
+        days.occupy(10, 20, true, false);
+
+        assertTrue(days.isFree(10, 20));
+        assertFalse(days.isFree(19, 21));
+        assertFalse(days.isFree(29, 30));
+    }
+
+    @Test
+    void emptyPeriodIsAlwaysFree() {
+        days.occupy(0, 64, true, true);
+
+        assertTrue(days.isFree(10, 10));
+    }
+
+    @Test
+    void countBitsOfWholeWords() {
+        days.occupy(64, 192, true, true);
+
+        assertEquals(128, RoomOccupancyIndex.countBits(days.words, 0, 192));
+        assertEquals(64, RoomOccupancyIndex.countBits(days.words, 64, 128));
+        assertEquals(64, RoomOccupancyIndex.countBits(days.words, 128, 256));
+        assertEquals(0, RoomOccupancyIndex.countBits(days.words, 0, 64));
+    }
+
+    @Test
+    void countBitsAcrossWordBoundary() {
+        days.occupy(60, 70, true, true);
+
+        assertEquals(10, RoomOccupancyIndex.countBits(days.words, 0, 128));
+        assertEquals(4, RoomOccupancyIndex.countBits(days.words, 0, 64));
+        assertEquals(6, RoomOccupancyIndex.countBits(days.words, 64, 128));
+        assertEquals(2, RoomOccupancyIndex.countBits(days.words, 63, 65));
+        assertEquals(1, RoomOccupancyIndex.countBits(days.arrivals, 0, 128));
+        assertEquals(0, RoomOccupancyIndex.countBits(days.arrivals, 61, 128));
+    }
+
+    @Test
+    void countBitsBeyondAllocatedWords() {
+        days.occupy(3, 5, true, true);
+
+        assertEquals(2, RoomOccupancyIndex.countBits(days.words, 0, 1_000));
+        assertEquals(0, RoomOccupancyIndex.countBits(days.words, 640, 704));
+        assertEquals(0, RoomOccupancyIndex.countBits(days.words, 10, 10));
+    }
+}
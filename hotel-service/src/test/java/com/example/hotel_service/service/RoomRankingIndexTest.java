@@ -0,0 +1,110 @@
+package com.example.hotel_service.service;
+
+import com.example.hotel_service.dto.RoomDTO;
+import com.example.hotel_service.entity.Hotel;
+import com.example.hotel_service.entity.Room;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Рейтинг автовыбора: порядок (timesBooked, id), выпадение удержанных и недоступных комнат,
+ * фильтр по датам и лимит.
+ */
+class RoomRankingIndexTest {
+
+    private final RoomRankingIndex index = new RoomRankingIndex(null);
+
+    @Test
+    void ordersByTimesBookedThenId() {
+        index.register(room(3L, 1, true));
+        index.register(room(2L, 0, true));
+        index.register(room(1L, 1, true));
+
+        assertEquals(List.of(2L, 1L, 3L), ids(index.top(10, id -> true)));
+    }
+
+    @Test
+    void limitCutsRanking() {
+        index.register(room(1L, 0, true));
+        index.register(room(2L, 1, true));
+        index.register(room(3L, 2, true));
+
+        assertEquals(List.of(1L, 2L), ids(index.top(2, id -> true)));
+    }
+
+    @Test
+    void unavailableAndHeldRoomsAreSkipped() {
+        index.register(room(1L, 0, false));
+        Room held = room(2L, 0, true);
+        held.setTempBlockRequestId("r1");
+        index.register(held);
+        index.register(room(3L, 5, true));
+
+        assertEquals(List.of(3L), ids(index.top(10, id -> true)));
+    }
+
+    @Test
+    void filterSkipsRoomsWithoutUsingLimit() {
+        index.register(room(1L, 0, true));
+        index.register(room(2L, 1, true));
+        index.register(room(3L, 2, true));
+
+        assertEquals(List.of(1L, 3L), ids(index.top(2, id -> id != 2L)));
+    }
+
+    @Test
+    void holdRemovesRoomAndReleaseReturnsItWithDelta() {
+        index.register(room(1L, 0, true));
+        index.register(room(2L, 0, true));
+
+        index.onHold(1L);
+        assertEquals(List.of(2L), ids(index.top(10, id -> true)));
+
+        // Снятие без брони откатывает засчитанное удержанием бронирование
+        index.onRelease(1L, -1);
+        List<RoomDTO> released = index.top(10, id -> true);
+        assertEquals(List.of(1L, 2L), ids(released));
+        assertEquals(0, released.get(0).getTimesBooked());
+
+        index.onHold(1L);
+        index.onRelease(1L, 0);
+        assertEquals(List.of(2L, 1L), ids(index.top(10, id -> true)));
+    }
+
+    @Test
+    void reRegisterReplacesRankKey() {
+        index.register(room(1L, 0, true));
+        index.register(room(2L, 1, true));
+
+        index.register(room(1L, 3, true));
+
+        List<RoomDTO> top = index.top(10, id -> true);
+        assertEquals(List.of(2L, 1L), ids(top));
+        assertEquals(3, top.get(1).getTimesBooked());
+    }
+
+    @Test
+    void unknownRoomIsIgnored() {
+        index.onHold(42L);
+        index.onRelease(42L, 0);
+
+        assertTrue(index.top(10, id -> true).isEmpty());
+    }
+
+    private static List<Long> ids(List<RoomDTO> rooms) {
+        return rooms.stream().map(RoomDTO::getId).toList();
+    }
+
+    private static Room room(Long id, int timesBooked, boolean available) {
+        return Room.builder()
+                .id(id)
+                .hotel(Hotel.builder().id(10L).name("Hotel").address("Street").build())
+                .number(String.valueOf(100 + id))
+                .available(available)
+                .timesBooked(timesBooked)
+                .build();
+    }
+}
@@ -0,0 +1,88 @@
+package com.example.hotel_service.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Колесо таймеров с управляемыми часами: время передаётся в миллисекундах явно,
+ * тик — секунда, восемь слотов (оборот — 8 секунд).
+ */
+class TimingWheelTest {
+
+    private static final long TICK = 1_000;
+    private static final int SLOTS = 8;
+
+    private final List<String> expired = new ArrayList<>();
+
+    @Test
+    void expiresOnFirstTickNotBeforeDeadline() {
+        TimingWheel<String> wheel = new TimingWheel<>(TICK, SLOTS, 0);
+        wheel.schedule("hold", 5_500);
+
+        wheel.advance(5_000, expired::add);
+        wheel.advance(5_999, expired::add);
+        assertTrue(expired.isEmpty(), "Item must not expire before its deadline");
+
+        wheel.advance(6_000, expired::add);
+        assertEquals(List.of("hold"), expired);
+    }
+
+    @Test
+    void overdueItemExpiresOnNextTick() {
+        TimingWheel<String> wheel = new TimingWheel<>(TICK, SLOTS, 10_000);
+        wheel.schedule("hold", 3_000);
+
+        wheel.advance(10_500, expired::add);
+        assertTrue(expired.isEmpty());
+
+        wheel.advance(11_000, expired::add);
+        assertEquals(List.of("hold"), expired);
+    }
+
+    @Test
+    void itemBeyondOneTurnWaitsForItsTurn() {
+        TimingWheel<String> wheel = new TimingWheel<>(TICK, SLOTS, 0);
+        // Тик 10 делит слот с тиком 2
+        wheel.schedule("hold", 10_000);
+
+        wheel.advance(2_000, expired::add);
+        wheel.advance(9_999, expired::add);
+        assertTrue(expired.isEmpty());
+
+        wheel.advance(10_000, expired::add);
+        assertEquals(List.of("hold"), expired);
+    }
+
+    @Test
+    void itemScheduledBehindCursorDuringAdvanceIsNotDelayedByTurn() {
+        TimingWheel<String> wheel = new TimingWheel<>(TICK, SLOTS, 0);
+        wheel.schedule("trigger", 5_000);
+
+        // Догоняющий проход по тикам 1..7: на тике 5 ставится элемент со сроком в уже пройденном тике 2
+        wheel.advance(7_000, item -> {
+            expired.add(item);
+            if (item.equals("trigger")) {
+                wheel.schedule("late", 2_000);
+            }
+        });
+
+        assertEquals(List.of("trigger", "late"), expired);
+    }
+
+    @Test
+    void eachItemExpiresOnce() {
+        TimingWheel<String> wheel = new TimingWheel<>(TICK, SLOTS, 0);
+        wheel.schedule("a", 1_000);
+        wheel.schedule("b", 1_000);
+        wheel.schedule("c", 3_000);
+
+        wheel.advance(3_000, expired::add);
+        wheel.advance(30_000, expired::add);
+
+        assertEquals(List.of("a", "b", "c"), expired);
+    }
+}